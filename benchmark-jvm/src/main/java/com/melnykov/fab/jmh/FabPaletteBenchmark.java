@@ -0,0 +1,58 @@
+package com.melnykov.fab.jmh;
+
+import com.melnykov.fab.FabPalette;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Color math of {@link FabPalette}, run on every color change of a button.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FabPaletteBenchmark {
+    private static final int COLOR_A = 0xff5677fc;
+    private static final int COLOR_B = 0xffff4081;
+
+    private int mColor = COLOR_A;
+    private int mIteration;
+
+    @Benchmark
+    public int pressedColor() {
+        return FabPalette.pressedColor(nextColor());
+    }
+
+    @Benchmark
+    public int rippleColor() {
+        return FabPalette.rippleColor(nextColor());
+    }
+
+    @Benchmark
+    public int disabledColor() {
+        return FabPalette.disabledColor(nextColor());
+    }
+
+    @Benchmark
+    public FabPalette ofCached() {
+        mColor = mColor == COLOR_A ? COLOR_B : COLOR_A;
+        return FabPalette.of(mColor);
+    }
+
+    // A different color each time, so the result can't be folded into a constant
+    private int nextColor() {
+        return 0xff000000 | (mIteration++ * 997);
+    }
+}
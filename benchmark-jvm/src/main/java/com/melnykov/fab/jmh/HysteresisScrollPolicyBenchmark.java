@@ -0,0 +1,61 @@
+package com.melnykov.fab.jmh;
+
+import com.melnykov.fab.HysteresisScrollPolicy;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The scroll policy, which runs once per frame while a followed view scrolls.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HysteresisScrollPolicyBenchmark {
+    private static final long FRAME_NANOS = TimeUnit.MILLISECONDS.toNanos(16);
+    // 4dp on an xxhdpi screen
+    private static final int HYSTERESIS = 12;
+    private static final int SCROLL_STEP = 8;
+    private static final int SCROLL_STEPS_PER_DIRECTION = 50;
+
+    private HysteresisScrollPolicy mPolicy;
+    private HysteresisScrollPolicy mFlingPolicy;
+    private long mFrameTimeNanos;
+    private int mIteration;
+
+    @Setup
+    public void setUp() {
+        mPolicy = new HysteresisScrollPolicy(HYSTERESIS, 0, 0);
+        mFlingPolicy = new HysteresisScrollPolicy(HYSTERESIS, 300, 1000);
+    }
+
+    @Benchmark
+    public int onScrolled() {
+        mFrameTimeNanos += FRAME_NANOS;
+        return mPolicy.onScrolled(nextDelta(), mFrameTimeNanos);
+    }
+
+    @Benchmark
+    public int onScrolledWithIntervalAndFling() {
+        mFrameTimeNanos += FRAME_NANOS;
+        return mFlingPolicy.onScrolled(nextDelta(), mFrameTimeNanos);
+    }
+
+    // Scrolls one way and then back, so the policy reports directions and flips between them
+    private int nextDelta() {
+        return (mIteration++ / SCROLL_STEPS_PER_DIRECTION) % 2 == 0 ? SCROLL_STEP : -SCROLL_STEP;
+    }
+}
@@ -0,0 +1,177 @@
+package com.melnykov.fab;
+
+import android.content.Context;
+import android.util.DisplayMetrics;
+import android.support.v7.widget.RecyclerView;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.widget.ArrayAdapter;
+import android.widget.ListView;
+import android.widget.ScrollView;
+
+import com.melnykov.fab.benchmark.Benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Benchmarks of the library hot paths. Lives in the library package to reach the package-private
+ * scroll detectors.
+ */
+public final class FabBenchmarks {
+    private static final int COLOR_A = 0xff5677fc;
+    private static final int COLOR_B = 0xffff4081;
+    private static final int LIST_ITEM_COUNT = 100;
+    private static final int SCROLL_STEP = 8;
+    private static final int SCROLL_STEPS_PER_DIRECTION = 50;
+
+    private FabBenchmarks() {
+    }
+
+    public static List<Benchmark> create(final Context context, final int fabLayoutResId) {
+        final LayoutInflater inflater = LayoutInflater.from(context);
+        final FloatingActionButton fab = new FloatingActionButton(context);
+        final int measureSpec = View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED);
+
+        final AbsListViewScrollDetector listDetector = new AbsListViewScrollDetector() {
+            @Override
+            public void onScrollUp() {
+            }
+
+            @Override
+            public void onScrollDown() {
+            }
+        };
+        // The detector reads the children, so the list needs items and a layout
+        List<String> items = new ArrayList<String>(LIST_ITEM_COUNT);
+        for (int i = 0; i < LIST_ITEM_COUNT; i++) {
+            items.add("Item " + i);
+        }
+        final ListView listView = new ListView(context);
+        listView.setAdapter(new ArrayAdapter<String>(context, android.R.layout.simple_list_item_1, items));
+        DisplayMetrics displayMetrics = context.getResources().getDisplayMetrics();
+        listView.measure(
+                View.MeasureSpec.makeMeasureSpec(displayMetrics.widthPixels, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(displayMetrics.heightPixels, View.MeasureSpec.EXACTLY));
+        listView.layout(0, 0, displayMetrics.widthPixels, displayMetrics.heightPixels);
+        final int visibleItemCount = listView.getChildCount();
+        listDetector.setListView(listView);
+        listDetector.setScrollPolicy(fab.getScrollPolicy().copy());
+        // The loop blocks the main thread, a frame callback would never dispatch the deltas
+        listDetector.setSynchronousDispatch(true);
+
+        final RecyclerViewScrollDetector recyclerDetector = new RecyclerViewScrollDetector() {
+            @Override
+            public void onScrollUp() {
+            }
+
+            @Override
+            public void onScrollDown() {
+            }
+        };
+        final RecyclerView recyclerView = new RecyclerView(context);
+        recyclerDetector.setScrollPolicy(fab.getScrollPolicy().copy());
+        recyclerDetector.setSynchronousDispatch(true);
+        // Only scrolls during a user drag are counted
+        recyclerDetector.onScrollStateChanged(recyclerView, RecyclerView.SCROLL_STATE_DRAGGING);
+
+        final ScrollViewScrollDetector scrollViewDetector = new ScrollViewScrollDetector() {
+            @Override
+            public void onScrollUp() {
+            }
+
+            @Override
+            public void onScrollDown() {
+            }
+        };
+        final ScrollView scrollView = new ScrollView(context);
+        scrollViewDetector.setScrollPolicy(fab.getScrollPolicy().copy());
+        scrollViewDetector.setSynchronousDispatch(true);
+
+        List<Benchmark> benchmarks = new ArrayList<Benchmark>();
+        benchmarks.add(new Benchmark("inflate", 1000) {
+            @Override
+            public void run(int iteration) {
+                inflater.inflate(fabLayoutResId, null, false);
+            }
+        });
+        benchmarks.add(new Benchmark("construct", 1000) {
+            @Override
+            public void run(int iteration) {
+                new FloatingActionButton(context);
+            }
+        });
+        benchmarks.add(new Benchmark("updateBackground (cached)", 5000) {
+            @Override
+            public void run(int iteration) {
+                fab.setColorNormal(iteration % 2 == 0 ? COLOR_A : COLOR_B);
+            }
+        });
+        benchmarks.add(new Benchmark("updateBackground (new colors)", 1000) {
+            @Override
+            public void run(int iteration) {
+                fab.setColorNormal(0xff000000 | (iteration * 997));
+            }
+        });
+        benchmarks.add(new Benchmark("onMeasure", 10000) {
+            @Override
+            public void run(int iteration) {
+                fab.forceLayout();
+                fab.measure(measureSpec, measureSpec);
+            }
+        });
+        benchmarks.add(new Benchmark("FabPalette.pressedColor", 100000) {
+            @Override
+            public void run(int iteration) {
+                FabPalette.pressedColor(0xff000000 | iteration);
+            }
+        });
+        benchmarks.add(new Benchmark("FabPalette.rippleColor", 100000) {
+            @Override
+            public void run(int iteration) {
+                FabPalette.rippleColor(0xff000000 | iteration);
+            }
+        });
+        benchmarks.add(new Benchmark("FabPalette.of (cached)", 100000) {
+            @Override
+            public void run(int iteration) {
+                FabPalette.of(iteration % 2 == 0 ? COLOR_A : COLOR_B);
+            }
+        });
+        benchmarks.add(new Benchmark("AbsListView onScroll", 100000) {
+            @Override
+            public void run(int iteration) {
+                // Moves the laid out children like a scroll within the first visible item
+                int delta = getScrollDelta(iteration);
+                for (int i = 0; i < visibleItemCount; i++) {
+                    listView.getChildAt(i).offsetTopAndBottom(-delta);
+                }
+                listDetector.onScroll(listView, 0, visibleItemCount, LIST_ITEM_COUNT);
+            }
+        });
+        benchmarks.add(new Benchmark("RecyclerView onScrolled", 100000) {
+            @Override
+            public void run(int iteration) {
+                recyclerDetector.onScrolled(recyclerView, 0, getScrollDelta(iteration));
+            }
+        });
+        benchmarks.add(new Benchmark("ScrollView onScrollChanged", 100000) {
+            private int mScrollY;
+
+            @Override
+            public void run(int iteration) {
+                int oldScrollY = mScrollY;
+                mScrollY += getScrollDelta(iteration);
+                scrollViewDetector.onScrollChanged(scrollView, 0, mScrollY, 0, oldScrollY);
+            }
+        });
+        return benchmarks;
+    }
+
+    /**
+     * Scrolls one way and then back, so the policy reports directions and flips between them.
+     */
+    private static int getScrollDelta(int iteration) {
+        return (iteration / SCROLL_STEPS_PER_DIRECTION) % 2 == 0 ? SCROLL_STEP : -SCROLL_STEP;
+    }
+}
\ No newline at end of file
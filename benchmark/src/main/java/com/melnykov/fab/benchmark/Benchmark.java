@@ -0,0 +1,43 @@
+package com.melnykov.fab.benchmark;
+
+import android.os.Debug;
+
+import java.util.Locale;
+
+/**
+ * A single measured operation. Reports the average time and the number of objects allocated on
+ * the calling thread per operation.
+ */
+public abstract class Benchmark {
+    private static final int WARMUP_ITERATIONS = 200;
+
+    private final String mName;
+    private final int mIterations;
+
+    public Benchmark(String name, int iterations) {
+        mName = name;
+        mIterations = iterations;
+    }
+
+    public abstract void run(int iteration);
+
+    @SuppressWarnings("deprecation")
+    String measure() {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            run(i);
+        }
+
+        Debug.startAllocCounting();
+        Debug.resetThreadAllocCount();
+        long start = System.nanoTime();
+        for (int i = 0; i < mIterations; i++) {
+            run(i);
+        }
+        long elapsed = System.nanoTime() - start;
+        int allocations = Debug.getThreadAllocCount();
+        Debug.stopAllocCounting();
+
+        return String.format(Locale.US, "%-32s %10.0f ns/op %8.2f allocs/op", mName,
+                (double) elapsed / mIterations, (double) allocations / mIterations);
+    }
+}
\ No newline at end of file
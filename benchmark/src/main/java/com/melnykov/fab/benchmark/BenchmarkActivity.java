@@ -0,0 +1,52 @@
+package com.melnykov.fab.benchmark;
+
+import android.app.Activity;
+import android.os.Bundle;
+import android.os.Handler;
+import android.util.Log;
+import android.widget.TextView;
+
+import com.melnykov.fab.FabBenchmarks;
+
+import java.util.List;
+
+/**
+ * Runs the benchmarks one by one on the main thread and prints the results on the screen and
+ * to logcat.
+ */
+public class BenchmarkActivity extends Activity {
+    private static final String TAG = "FabBenchmark";
+
+    private final Handler mHandler = new Handler();
+    private List<Benchmark> mBenchmarks;
+    private int mNext;
+    private TextView mResults;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_benchmark);
+        mResults = (TextView) findViewById(R.id.results);
+        mBenchmarks = FabBenchmarks.create(this, R.layout.benchmark_fab);
+        mHandler.post(mRunNext);
+    }
+
+    @Override
+    protected void onDestroy() {
+        mHandler.removeCallbacks(mRunNext);
+        super.onDestroy();
+    }
+
+    // Post each benchmark separately, so the results show up while the others are running
+    private final Runnable mRunNext = new Runnable() {
+        @Override
+        public void run() {
+            if (mNext < mBenchmarks.size()) {
+                String result = mBenchmarks.get(mNext++).measure();
+                Log.i(TAG, result);
+                mResults.append(result + "\n");
+                mHandler.post(this);
+            }
+        }
+    };
+}
\ No newline at end of file
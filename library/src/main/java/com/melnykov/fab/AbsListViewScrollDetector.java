@@ -1,64 +1,162 @@
 package com.melnykov.fab;
 
+import android.database.DataSetObserver;
 import android.support.annotation.NonNull;
+import android.util.SparseIntArray;
 import android.view.View;
 import android.widget.AbsListView;
+import android.widget.Adapter;
+import android.widget.ListView;
 
-abstract class AbsListViewScrollDetector implements AbsListView.OnScrollListener {
-    private int mLastScrollY;
-    private int mPreviousFirstVisibleItem;
+/**
+ * Computes pixel scroll deltas of an {@link AbsListView}. The tops of the children of the last
+ * frame are kept by adapter position, so any item visible in two consecutive frames gives the
+ * exact distance. When the list jumped further than a screen, the distance is estimated from the
+ * cached item heights. Both caches are cleared when the adapter data changes.
+ */
+abstract class AbsListViewScrollDetector implements AbsListView.OnScrollListener, ScrollDirectionListener {
+    private static final int MAX_CACHED_HEIGHTS = 512;
+
+    private final ScrollDirectionEngine mEngine = new ScrollDirectionEngine(this);
+    private final SparseIntArray mLastTops = new SparseIntArray();
+    private final SparseIntArray mItemHeights = new SparseIntArray();
+    private int mLastFirstVisibleItem;
+    private boolean mHasLastFrame;
     private AbsListView mListView;
-    private int mScrollThreshold;
+    private Adapter mAdapter;
 
-    abstract void onScrollUp();
+    private final DataSetObserver mDataSetObserver = new DataSetObserver() {
+        @Override
+        public void onChanged() {
+            resetPositions();
+        }
 
-    abstract void onScrollDown();
+        @Override
+        public void onInvalidated() {
+            resetPositions();
+        }
+    };
 
     @Override
     public void onScrollStateChanged(AbsListView view, int scrollState) {
+        if (scrollState == SCROLL_STATE_IDLE) {
+            mEngine.onScrollIdle();
+        }
     }
 
     @Override
     public void onScroll(AbsListView view, int firstVisibleItem, int visibleItemCount, int totalItemCount) {
-        if(totalItemCount == 0) return;
-        if (isSameRow(firstVisibleItem)) {
-            int newScrollY = getTopItemScrollY();
-            boolean isSignificantDelta = Math.abs(mLastScrollY - newScrollY) > mScrollThreshold;
-            if (isSignificantDelta) {
-                if (mLastScrollY > newScrollY) {
-                    onScrollUp();
-                } else {
-                    onScrollDown();
-                }
+        boolean traced = FabTrace.beginSection("Fab.AbsListView.onScroll");
+        try {
+            if (totalItemCount == 0 || mListView == null) return;
+            int childCount = mListView.getChildCount();
+            if (childCount == 0) return;
+            observeAdapter(mListView.getAdapter());
+
+            if (mItemHeights.size() + childCount > MAX_CACHED_HEIGHTS) {
+                mItemHeights.clear();
+            }
+            for (int i = 0; i < childCount; i++) {
+                mItemHeights.put(firstVisibleItem + i, mListView.getChildAt(i).getHeight());
             }
-            mLastScrollY = newScrollY;
-        } else {
-            if (firstVisibleItem > mPreviousFirstVisibleItem) {
-                onScrollUp();
-            } else {
-                onScrollDown();
+
+            if (mHasLastFrame) {
+                mEngine.onScrolled(getScrollDelta(firstVisibleItem, childCount));
             }
 
-            mLastScrollY = getTopItemScrollY();
-            mPreviousFirstVisibleItem = firstVisibleItem;
+            mLastTops.clear();
+            for (int i = 0; i < childCount; i++) {
+                mLastTops.append(firstVisibleItem + i, mListView.getChildAt(i).getTop());
+            }
+            mLastFirstVisibleItem = firstVisibleItem;
+            mHasLastFrame = true;
+        } finally {
+            FabTrace.endSection(traced);
         }
     }
 
-    public void setScrollThreshold(int scrollThreshold) {
-        mScrollThreshold = scrollThreshold;
+    public void setScrollPolicy(ScrollPolicy scrollPolicy) {
+        mEngine.setScrollPolicy(scrollPolicy);
+    }
+
+    void setOffsetListener(ScrollDirectionEngine.OffsetListener offsetListener) {
+        mEngine.setOffsetListener(offsetListener);
+    }
+
+    void setSynchronousDispatch(boolean synchronousDispatch) {
+        mEngine.setSynchronousDispatch(synchronousDispatch);
+    }
+
+    /**
+     * Returns whether the direction being reported repeats the last one, called from
+     * {@link #onScrollUp()} or {@link #onScrollDown()}.
+     */
+    boolean isRepeatedDirection() {
+        return mEngine.isRepeatedDirection();
+    }
+
+    /**
+     * Drops the pending scroll and the cached positions, called when the detector stops
+     * listening.
+     */
+    void cancelPendingScroll() {
+        mEngine.cancel();
+        observeAdapter(null);
+        resetPositions();
     }
 
     public void setListView(@NonNull AbsListView listView) {
         mListView = listView;
     }
 
-    private boolean isSameRow(int firstVisibleItem) {
-        return firstVisibleItem == mPreviousFirstVisibleItem;
+    private int getScrollDelta(int firstVisibleItem, int childCount) {
+        // Any item which was already visible in the last frame gives the exact distance
+        for (int i = 0; i < childCount; i++) {
+            int index = mLastTops.indexOfKey(firstVisibleItem + i);
+            if (index >= 0) {
+                return mLastTops.valueAt(index) - mListView.getChildAt(i).getTop();
+            }
+        }
+        return estimateScrollDelta(firstVisibleItem, childCount);
+    }
+
+    private int estimateScrollDelta(int firstVisibleItem, int childCount) {
+        View firstChild = mListView.getChildAt(0);
+        int firstTop = firstChild.getTop();
+        // Items in the same row of a grid share their top
+        int columns = 1;
+        while (columns < childCount && mListView.getChildAt(columns).getTop() == firstTop) {
+            columns++;
+        }
+        int divider = mListView instanceof ListView ? ((ListView) mListView).getDividerHeight() : 0;
+        int start = Math.min(firstVisibleItem, mLastFirstVisibleItem);
+        int end = Math.max(firstVisibleItem, mLastFirstVisibleItem);
+        int distance = 0;
+        for (int position = start; position < end; position += columns) {
+            distance += mItemHeights.get(position, firstChild.getHeight()) + divider;
+        }
+        if (firstVisibleItem < mLastFirstVisibleItem) {
+            distance = -distance;
+        }
+        return distance + mLastTops.valueAt(0) - firstTop;
+    }
+
+    private void observeAdapter(Adapter adapter) {
+        if (adapter != mAdapter) {
+            if (mAdapter != null) {
+                mAdapter.unregisterDataSetObserver(mDataSetObserver);
+            }
+            mAdapter = adapter;
+            if (adapter != null) {
+                adapter.registerDataSetObserver(mDataSetObserver);
+            }
+            resetPositions();
+        }
     }
 
-    private int getTopItemScrollY() {
-        if (mListView == null || mListView.getChildAt(0) == null) return 0;
-        View topChild = mListView.getChildAt(0);
-        return topChild.getTop();
+    private void resetPositions() {
+        mLastTops.clear();
+        mItemHeights.clear();
+        mHasLastFrame = false;
     }
 }
\ No newline at end of file
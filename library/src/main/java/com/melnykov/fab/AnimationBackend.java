@@ -0,0 +1,42 @@
+package com.melnykov.fab;
+
+import android.os.Build;
+import android.view.View;
+import android.view.animation.Interpolator;
+
+/**
+ * Animates the translation of a view. The platform animation API is used directly on
+ * Honeycomb and newer, NineOldAndroids is only loaded on older devices.
+ */
+abstract class AnimationBackend {
+
+    interface Listener {
+        /**
+         * @param canceled true if the animation was stopped or replaced by another one
+         */
+        void onAnimationEnd(boolean canceled);
+    }
+
+    static AnimationBackend create(View view) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB) {
+            return new NativeAnimationBackend(view);
+        } else {
+            return new LegacyAnimationBackend(view);
+        }
+    }
+
+    abstract void animateTranslationY(float translationY, long duration, Interpolator interpolator,
+                                      boolean withLayer, Listener listener);
+
+    abstract void setTranslationY(float translationY);
+
+    abstract float getTranslationY();
+
+    /**
+     * Puts the view on a hardware layer while it is moved frame by frame from outside, or
+     * restores its previous layer type.
+     */
+    abstract void setLayerEnabled(boolean enabled);
+
+    abstract void cancel();
+}
\ No newline at end of file
@@ -0,0 +1,103 @@
+package com.melnykov.fab;
+
+import android.support.annotation.NonNull;
+import android.widget.AbsListView;
+
+/**
+ * An {@link AbsListView.OnScrollListener} that forwards scroll events to several listeners, so
+ * more than one component can follow the same list. Use {@link #of(AbsListView)} to get the
+ * instance installed on a list, or {@link #of(AbsListView, AbsListView.OnScrollListener)} to keep
+ * a listener the app set with {@link AbsListView#setOnScrollListener}.
+ */
+public class CompositeOnScrollListener implements AbsListView.OnScrollListener {
+    private static final AbsListView.OnScrollListener[] EMPTY_LISTENERS =
+            new AbsListView.OnScrollListener[0];
+
+    // Copy-on-write, so dispatching a scroll never allocates
+    private AbsListView.OnScrollListener[] mListeners = EMPTY_LISTENERS;
+
+    /**
+     * Returns the composite listener of the list, installing a new one if needed. Note that it
+     * replaces a listener previously set with {@link AbsListView#setOnScrollListener}, use
+     * {@link #of(AbsListView, AbsListView.OnScrollListener)} to keep it.
+     */
+    public static CompositeOnScrollListener of(@NonNull AbsListView listView) {
+        Object tag = listView.getTag(R.id.fab_composite_scroll_listener);
+        if (tag instanceof CompositeOnScrollListener) {
+            return (CompositeOnScrollListener) tag;
+        }
+        return of(listView, null);
+    }
+
+    /**
+     * Returns the composite listener of the list and installs it again, in case the app replaced
+     * it with {@link AbsListView#setOnScrollListener} in the meantime.
+     *
+     * @param existingListener the listener currently set on the list, it becomes the first
+     *                         subscriber. Null if there is none.
+     */
+    public static CompositeOnScrollListener of(@NonNull AbsListView listView,
+                                               AbsListView.OnScrollListener existingListener) {
+        Object tag = listView.getTag(R.id.fab_composite_scroll_listener);
+        CompositeOnScrollListener listener;
+        if (tag instanceof CompositeOnScrollListener) {
+            listener = (CompositeOnScrollListener) tag;
+        } else {
+            listener = new CompositeOnScrollListener();
+            listView.setTag(R.id.fab_composite_scroll_listener, listener);
+        }
+        if (existingListener != null && existingListener != listener) {
+            listener.addOnScrollListener(0, existingListener);
+        }
+        listView.setOnScrollListener(listener);
+        return listener;
+    }
+
+    public void addOnScrollListener(@NonNull AbsListView.OnScrollListener listener) {
+        addOnScrollListener(mListeners.length, listener);
+    }
+
+    private void addOnScrollListener(int index, AbsListView.OnScrollListener listener) {
+        AbsListView.OnScrollListener[] listeners = mListeners;
+        for (AbsListView.OnScrollListener l : listeners) {
+            if (l == listener) return;
+        }
+        AbsListView.OnScrollListener[] newListeners =
+                new AbsListView.OnScrollListener[listeners.length + 1];
+        System.arraycopy(listeners, 0, newListeners, 0, index);
+        newListeners[index] = listener;
+        System.arraycopy(listeners, index, newListeners, index + 1, listeners.length - index);
+        mListeners = newListeners;
+    }
+
+    public void removeOnScrollListener(AbsListView.OnScrollListener listener) {
+        AbsListView.OnScrollListener[] listeners = mListeners;
+        for (int i = 0; i < listeners.length; i++) {
+            if (listeners[i] == listener) {
+                AbsListView.OnScrollListener[] newListeners = listeners.length == 1 ? EMPTY_LISTENERS
+                        : new AbsListView.OnScrollListener[listeners.length - 1];
+                System.arraycopy(listeners, 0, newListeners, 0, i);
+                System.arraycopy(listeners, i + 1, newListeners, i, listeners.length - i - 1);
+                mListeners = newListeners;
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void onScrollStateChanged(AbsListView view, int scrollState) {
+        AbsListView.OnScrollListener[] listeners = mListeners;
+        for (AbsListView.OnScrollListener listener : listeners) {
+            listener.onScrollStateChanged(view, scrollState);
+        }
+    }
+
+    @Override
+    public void onScroll(AbsListView view, int firstVisibleItem, int visibleItemCount,
+                         int totalItemCount) {
+        AbsListView.OnScrollListener[] listeners = mListeners;
+        for (AbsListView.OnScrollListener listener : listeners) {
+            listener.onScroll(view, firstVisibleItem, visibleItemCount, totalItemCount);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,82 @@
+package com.melnykov.fab;
+
+import android.content.res.Resources;
+import android.graphics.drawable.Drawable;
+import android.support.v4.util.LruCache;
+
+/**
+ * Process-wide cache of the background drawables built by {@link FloatingActionButton}.
+ * Buttons with the same colors, shadow size and screen density share a single
+ * {@link Drawable.ConstantState}, so their shapes and shadow bitmaps are allocated only once.
+ * Safe to use from any thread, so buttons can be inflated in the background.
+ * <p>
+ * The drawable a state is taken from must never be set on a view. Before API 11 the state keeps
+ * its owner drawable and the owner keeps its callback, so the cache would keep that view and its
+ * activity alive for the life of the process.
+ */
+final class FabDrawableCache {
+    private static final int MAX_SIZE = 32;
+
+    private static final LruCache<Key, Drawable.ConstantState> sCache =
+            new LruCache<Key, Drawable.ConstantState>(MAX_SIZE);
+
+    private FabDrawableCache() {
+    }
+
+    static Drawable get(Resources resources, Key key) {
+        Drawable.ConstantState state = sCache.get(key);
+        return state != null ? state.newDrawable(resources) : null;
+    }
+
+    /**
+     * Caches the state of a drawable which was created for the cache only.
+     *
+     * @return a new drawable from the cached state to be used instead of the template
+     */
+    static Drawable put(Resources resources, Key key, Drawable template) {
+        Drawable.ConstantState state = template.getConstantState();
+        if (state == null) {
+            return template;
+        }
+        sCache.put(key, state);
+        return state.newDrawable(resources);
+    }
+
+    static final class Key {
+        private final int mColorNormal;
+        private final int mColorPressed;
+        private final int mColorDisabled;
+        private final int mShadowSize;
+        private final int mDensityDpi;
+
+        Key(int colorNormal, int colorPressed, int colorDisabled, int shadowSize, int densityDpi) {
+            mColorNormal = colorNormal;
+            mColorPressed = colorPressed;
+            mColorDisabled = colorDisabled;
+            mShadowSize = shadowSize;
+            mDensityDpi = densityDpi;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return mColorNormal == key.mColorNormal
+                    && mColorPressed == key.mColorPressed
+                    && mColorDisabled == key.mColorDisabled
+                    && mShadowSize == key.mShadowSize
+                    && mDensityDpi == key.mDensityDpi;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = mColorNormal;
+            result = 31 * result + mColorPressed;
+            result = 31 * result + mColorDisabled;
+            result = 31 * result + mShadowSize;
+            result = 31 * result + mDensityDpi;
+            return result;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.melnykov.fab;
+
+/**
+ * Dimensions of a {@link FloatingActionButton} in pixels. Computed once whenever the size,
+ * elevation or shadow changes, so measuring and outlining the button only read fields.
+ */
+final class FabGeometry {
+    private final int mSize;
+    private final int mElevation;
+    private final int mShadowSize;
+
+    /**
+     * @param size       diameter of the circle
+     * @param elevation  elevation used on Lollipop
+     * @param shadowSize space reserved around the circle for the pre-Lollipop shadow, or 0
+     */
+    FabGeometry(int size, int elevation, int shadowSize) {
+        mSize = size;
+        mElevation = elevation;
+        mShadowSize = shadowSize;
+    }
+
+    int getSize() {
+        return mSize;
+    }
+
+    int getElevation() {
+        return mElevation;
+    }
+
+    int getShadowSize() {
+        return mShadowSize;
+    }
+
+    int getMeasuredSize() {
+        return mSize + mShadowSize * 2;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof FabGeometry)) return false;
+        FabGeometry geometry = (FabGeometry) o;
+        return mSize == geometry.mSize
+                && mElevation == geometry.mElevation
+                && mShadowSize == geometry.mShadowSize;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = mSize;
+        result = 31 * result + mElevation;
+        result = 31 * result + mShadowSize;
+        return result;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,414 @@
+package com.melnykov.fab;
+
+import android.content.Context;
+import android.support.annotation.NonNull;
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+import android.view.animation.AccelerateDecelerateInterpolator;
+import android.view.animation.Interpolator;
+import android.widget.AbsListView;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Shows and hides several buttons together from a single scroll detector per scrolling view.
+ * The scroll direction is computed once, then a single animation moves all buttons which have to
+ * move, each one optionally staggered behind the previous one. Buttons are hidden in the order
+ * they were added and shown in reverse order. A reversal stops the buttons where they are and
+ * moves them back from there.
+ * <p>
+ * Buttons are only weakly referenced, a button which is no longer used elsewhere can be collected
+ * without calling {@link #removeButton(FloatingActionButton)}. The scrolling views keep a
+ * reference to the controller until {@link #detach(View)} or {@link #detachAll()} is called.
+ */
+public class FabGroupController implements ScrollDirectionListener {
+    private final List<WeakReference<FloatingActionButton>> mButtons =
+            new ArrayList<WeakReference<FloatingActionButton>>();
+    private final List<Attachment> mAttachments = new ArrayList<Attachment>();
+    private ScrollPolicy mScrollPolicy;
+    private ScrollDirectionListener mScrollDirectionListener;
+    private long mStaggerDelay;
+
+    private final Interpolator mInterpolator = new AccelerateDecelerateInterpolator();
+    private final GroupAnimationBackend mAnimationBackend = GroupAnimationBackend.create(
+            new GroupAnimationBackend.Listener() {
+                @Override
+                public void onAnimationUpdate(float fraction) {
+                    updateAnimation(fraction);
+                }
+            });
+    // Buttons moved by the running animation, with the start delay and duration of their part
+    private FloatingActionButton[] mAnimatedButtons = new FloatingActionButton[0];
+    private long[] mStartDelays = new long[0];
+    private long[] mDurations = new long[0];
+    private int mAnimatedCount;
+    private boolean mAnimating;
+    private boolean mAnimatingVisible;
+    private long mAnimationDuration;
+
+    public FabGroupController(@NonNull Context context) {
+        mScrollPolicy = new HysteresisScrollPolicy(
+                context.getResources().getDimensionPixelOffset(R.dimen.fab_scroll_threshold), 0, 0);
+    }
+
+    public void addButton(@NonNull FloatingActionButton fab) {
+        pruneButtons();
+        if (indexOfButton(fab) < 0) {
+            mButtons.add(new WeakReference<FloatingActionButton>(fab));
+        }
+    }
+
+    public void removeButton(@NonNull FloatingActionButton fab) {
+        int index = indexOfButton(fab);
+        if (index >= 0) {
+            mButtons.remove(index);
+            onButtonLeft(fab);
+        }
+    }
+
+    /**
+     * Sets the delay in milliseconds between the start of two consecutive moving buttons.
+     */
+    public void setStaggerDelay(long staggerDelay) {
+        mStaggerDelay = staggerDelay;
+    }
+
+    public long getStaggerDelay() {
+        return mStaggerDelay;
+    }
+
+    /**
+     * Sets the policy used by scrolling views attached after this call.
+     */
+    public void setScrollPolicy(@NonNull ScrollPolicy scrollPolicy) {
+        mScrollPolicy = scrollPolicy;
+    }
+
+    public ScrollPolicy getScrollPolicy() {
+        return mScrollPolicy;
+    }
+
+    public void setScrollDirectionListener(ScrollDirectionListener scrollDirectionListener) {
+        mScrollDirectionListener = scrollDirectionListener;
+    }
+
+    public void show() {
+        toggle(true);
+    }
+
+    public void hide() {
+        toggle(false);
+    }
+
+    private void toggle(boolean visible) {
+        if (mAnimating) {
+            if (mAnimatingVisible == visible) {
+                return;
+            }
+            stopAnimation();
+        }
+        pruneButtons();
+        int count = mButtons.size();
+        if (mAnimatedButtons.length < count) {
+            mAnimatedButtons = new FloatingActionButton[count];
+            mStartDelays = new long[count];
+            mDurations = new long[count];
+        }
+        long animationDuration = 0;
+        int animatedCount = 0;
+        for (int i = 0; i < count; i++) {
+            FloatingActionButton fab = mButtons.get(visible ? count - 1 - i : i).get();
+            if (fab == null) {
+                continue;
+            }
+            // Buttons which are already in place don't delay the following ones
+            long startDelay = animatedCount * mStaggerDelay;
+            long duration = fab.startGroupToggle(this, visible, startDelay);
+            if (duration > 0) {
+                mAnimatedButtons[animatedCount] = fab;
+                mStartDelays[animatedCount] = startDelay;
+                mDurations[animatedCount] = duration;
+                animatedCount++;
+                animationDuration = Math.max(animationDuration, startDelay + duration);
+            }
+        }
+        mAnimatedCount = animatedCount;
+        if (animatedCount > 0) {
+            mAnimating = true;
+            mAnimatingVisible = visible;
+            mAnimationDuration = animationDuration;
+            mAnimationBackend.start(animationDuration);
+        }
+    }
+
+    private void updateAnimation(float fraction) {
+        float playTime = fraction * mAnimationDuration;
+        boolean finished = fraction >= 1.0f;
+        for (int i = 0; i < mAnimatedCount; i++) {
+            FloatingActionButton fab = mAnimatedButtons[i];
+            if (fab == null) {
+                continue;
+            }
+            float progress = finished ? 1.0f
+                    : Math.max(0.0f, Math.min(1.0f, (playTime - mStartDelays[i]) / mDurations[i]));
+            fab.setGroupProgress(mInterpolator.getInterpolation(progress));
+            if (progress == 1.0f) {
+                mAnimatedButtons[i] = null;
+                fab.finishGroupToggle();
+            }
+        }
+        if (finished) {
+            mAnimating = false;
+            mAnimatedCount = 0;
+        }
+    }
+
+    /**
+     * Stops moving all buttons, they stay where they are.
+     */
+    private void stopAnimation() {
+        mAnimating = false;
+        mAnimationBackend.cancel();
+        for (int i = 0; i < mAnimatedCount; i++) {
+            FloatingActionButton fab = mAnimatedButtons[i];
+            if (fab != null) {
+                mAnimatedButtons[i] = null;
+                fab.stopGroupToggle();
+            }
+        }
+        mAnimatedCount = 0;
+    }
+
+    /**
+     * Stops moving a button which has been toggled on its own or removed from the group.
+     */
+    void onButtonLeft(FloatingActionButton fab) {
+        boolean animating = false;
+        for (int i = 0; i < mAnimatedCount; i++) {
+            if (mAnimatedButtons[i] == fab) {
+                mAnimatedButtons[i] = null;
+                fab.stopGroupToggle();
+            } else if (mAnimatedButtons[i] != null) {
+                animating = true;
+            }
+        }
+        if (mAnimating && !animating) {
+            stopAnimation();
+        }
+    }
+
+    private int indexOfButton(FloatingActionButton fab) {
+        for (int i = 0; i < mButtons.size(); i++) {
+            if (mButtons.get(i).get() == fab) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void pruneButtons() {
+        for (int i = mButtons.size() - 1; i >= 0; i--) {
+            if (mButtons.get(i).get() == null) {
+                mButtons.remove(i);
+            }
+        }
+    }
+
+    public void attachToListView(@NonNull AbsListView listView) {
+        ListViewAttachment attachment = new ListViewAttachment(this, listView);
+        attachment.setScrollPolicy(mScrollPolicy.copy());
+        // The app may have replaced the composite with setOnScrollListener() since it was installed
+        CompositeOnScrollListener.of(listView, null).addOnScrollListener(attachment);
+        mAttachments.add(attachment);
+    }
+
+    public void attachToRecyclerView(@NonNull RecyclerView recyclerView) {
+        RecyclerViewAttachment attachment = new RecyclerViewAttachment(this, recyclerView);
+        attachment.setScrollPolicy(mScrollPolicy.copy());
+        recyclerView.addOnScrollListener(attachment);
+        mAttachments.add(attachment);
+    }
+
+    public void attachToScrollView(@NonNull ObservableScrollView scrollView) {
+        ScrollViewAttachment attachment = new ScrollViewAttachment(this, scrollView);
+        attachment.setScrollPolicy(mScrollPolicy.copy());
+        scrollView.addOnScrollChangedListener(attachment);
+        mAttachments.add(attachment);
+    }
+
+    public void attachToView(@NonNull View view) {
+        ViewAttachment attachment = new ViewAttachment(this, view);
+        attachment.setScrollPolicy(mScrollPolicy.copy());
+        attachment.addToViewTreeObserver(view);
+        mAttachments.add(attachment);
+    }
+
+    public void detach(@NonNull View target) {
+        for (int i = mAttachments.size() - 1; i >= 0; i--) {
+            Attachment attachment = mAttachments.get(i);
+            if (attachment.isAttachedTo(target)) {
+                attachment.unregister();
+                mAttachments.remove(i);
+            }
+        }
+    }
+
+    public void detachAll() {
+        for (int i = mAttachments.size() - 1; i >= 0; i--) {
+            mAttachments.get(i).unregister();
+        }
+        mAttachments.clear();
+    }
+
+    @Override
+    public void onScrollDown() {
+        show();
+        if (mScrollDirectionListener != null) {
+            mScrollDirectionListener.onScrollDown();
+        }
+    }
+
+    @Override
+    public void onScrollUp() {
+        hide();
+        if (mScrollDirectionListener != null) {
+            mScrollDirectionListener.onScrollUp();
+        }
+    }
+
+    private interface Attachment {
+        boolean isAttachedTo(View target);
+
+        void unregister();
+    }
+
+    private static class ListViewAttachment extends AbsListViewScrollDetector implements Attachment {
+        private final FabGroupController mController;
+        private final AbsListView mListView;
+
+        ListViewAttachment(FabGroupController controller, AbsListView listView) {
+            mController = controller;
+            mListView = listView;
+            setListView(listView);
+        }
+
+        @Override
+        public boolean isAttachedTo(View target) {
+            return mListView == target;
+        }
+
+        @Override
+        public void unregister() {
+            CompositeOnScrollListener.of(mListView).removeOnScrollListener(this);
+            cancelPendingScroll();
+        }
+
+        @Override
+        public void onScrollDown() {
+            mController.onScrollDown();
+        }
+
+        @Override
+        public void onScrollUp() {
+            mController.onScrollUp();
+        }
+    }
+
+    private static class RecyclerViewAttachment extends RecyclerViewScrollDetector
+            implements Attachment {
+        private final FabGroupController mController;
+        private final RecyclerView mRecyclerView;
+
+        RecyclerViewAttachment(FabGroupController controller, RecyclerView recyclerView) {
+            mController = controller;
+            mRecyclerView = recyclerView;
+        }
+
+        @Override
+        public boolean isAttachedTo(View target) {
+            return mRecyclerView == target;
+        }
+
+        @Override
+        public void unregister() {
+            mRecyclerView.removeOnScrollListener(this);
+            cancelPendingScroll();
+        }
+
+        @Override
+        public void onScrollDown() {
+            mController.onScrollDown();
+        }
+
+        @Override
+        public void onScrollUp() {
+            mController.onScrollUp();
+        }
+    }
+
+    private static class ScrollViewAttachment extends ScrollViewScrollDetector
+            implements Attachment {
+        private final FabGroupController mController;
+        private final ObservableScrollView mScrollView;
+
+        ScrollViewAttachment(FabGroupController controller, ObservableScrollView scrollView) {
+            mController = controller;
+            mScrollView = scrollView;
+        }
+
+        @Override
+        public boolean isAttachedTo(View target) {
+            return mScrollView == target;
+        }
+
+        @Override
+        public void unregister() {
+            mScrollView.removeOnScrollChangedListener(this);
+            cancelPendingScroll();
+        }
+
+        @Override
+        public void onScrollDown() {
+            mController.onScrollDown();
+        }
+
+        @Override
+        public void onScrollUp() {
+            mController.onScrollUp();
+        }
+    }
+
+    private static class ViewAttachment extends ScrollViewScrollDetector implements Attachment {
+        private final FabGroupController mController;
+        private final View mView;
+
+        ViewAttachment(FabGroupController controller, View view) {
+            mController = controller;
+            mView = view;
+            setScrollView(view);
+        }
+
+        @Override
+        public boolean isAttachedTo(View target) {
+            return mView == target;
+        }
+
+        @Override
+        public void unregister() {
+            removeFromViewTreeObserver(mView);
+            cancelPendingScroll();
+        }
+
+        @Override
+        public void onScrollDown() {
+            mController.onScrollDown();
+        }
+
+        @Override
+        public void onScrollUp() {
+            mController.onScrollUp();
+        }
+    }
+}
\ No newline at end of file
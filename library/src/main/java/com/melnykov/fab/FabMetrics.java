@@ -0,0 +1,148 @@
+package com.melnykov.fab;
+
+import android.support.annotation.NonNull;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Runtime counters of what the buttons are doing, e.g. to report buttons which keep toggling.
+ * Register an instance for a single button with
+ * {@link FloatingActionButton#setMetrics(FabMetrics)} or for all buttons with
+ * {@link #setGlobal(FabMetrics)}. Counters are updated without locking and can be read at any
+ * time with {@link #snapshot()}. Without registered metrics nothing is recorded.
+ */
+public final class FabMetrics {
+    static final int SCROLL_EVENTS = 0;
+    static final int DIRECTION_CHANGES = 1;
+    static final int ANIMATIONS_STARTED = 2;
+    static final int ANIMATION_MILLIS = 3;
+    static final int TOGGLE_NO_OPS = 4;
+    static final int BACKGROUND_REBUILDS = 5;
+    static final int PRE_DRAW_DEFERRALS = 6;
+    private static final int COUNTER_COUNT = 7;
+
+    private static volatile FabMetrics sGlobal;
+
+    private final AtomicLongArray mCounters = new AtomicLongArray(COUNTER_COUNT);
+
+    /**
+     * Sets the metrics recorded for every button in addition to its own, or null to stop.
+     */
+    public static void setGlobal(FabMetrics metrics) {
+        sGlobal = metrics;
+    }
+
+    public static FabMetrics getGlobal() {
+        return sGlobal;
+    }
+
+    static void record(FabMetrics metrics, int counter) {
+        record(metrics, counter, 1);
+    }
+
+    static void record(FabMetrics metrics, int counter, long delta) {
+        if (metrics != null) {
+            metrics.mCounters.addAndGet(counter, delta);
+        }
+        FabMetrics global = sGlobal;
+        if (global != null && global != metrics) {
+            global.mCounters.addAndGet(counter, delta);
+        }
+    }
+
+    @NonNull
+    public Snapshot snapshot() {
+        return new Snapshot(this);
+    }
+
+    public void reset() {
+        for (int i = 0; i < COUNTER_COUNT; i++) {
+            mCounters.set(i, 0);
+        }
+    }
+
+    /**
+     * Counter values at the time {@link #snapshot()} was called. Each counter is read atomically,
+     * but the counters may be updated while the snapshot is being taken.
+     */
+    public static final class Snapshot {
+        private final long mScrollEvents;
+        private final long mDirectionChanges;
+        private final long mAnimationsStarted;
+        private final long mAnimationMillis;
+        private final long mToggleNoOps;
+        private final long mBackgroundRebuilds;
+        private final long mPreDrawDeferrals;
+
+        private Snapshot(FabMetrics metrics) {
+            AtomicLongArray counters = metrics.mCounters;
+            mScrollEvents = counters.get(SCROLL_EVENTS);
+            mDirectionChanges = counters.get(DIRECTION_CHANGES);
+            mAnimationsStarted = counters.get(ANIMATIONS_STARTED);
+            mAnimationMillis = counters.get(ANIMATION_MILLIS);
+            mToggleNoOps = counters.get(TOGGLE_NO_OPS);
+            mBackgroundRebuilds = counters.get(BACKGROUND_REBUILDS);
+            mPreDrawDeferrals = counters.get(PRE_DRAW_DEFERRALS);
+        }
+
+        /**
+         * Returns the number of scroll callbacks handled by the views attached to the buttons.
+         */
+        public long getScrollEvents() {
+            return mScrollEvents;
+        }
+
+        /**
+         * Returns how many times the scroll direction reported by the scroll policy flipped,
+         * including the first reported direction. Repeated reports of the same direction are
+         * not counted.
+         */
+        public long getDirectionChanges() {
+            return mDirectionChanges;
+        }
+
+        /**
+         * Returns the number of show and hide animations which were started.
+         */
+        public long getAnimationsStarted() {
+            return mAnimationsStarted;
+        }
+
+        /**
+         * Returns the time in milliseconds the show and hide animations actually ran, recorded
+         * when they end or are canceled.
+         */
+        public long getAnimationMillis() {
+            return mAnimationMillis;
+        }
+
+        /**
+         * Returns the number of show and hide calls for a button which was already in that state.
+         * A call repeating the direction of the previous one is not counted.
+         */
+        public long getToggleNoOps() {
+            return mToggleNoOps;
+        }
+
+        public long getBackgroundRebuilds() {
+            return mBackgroundRebuilds;
+        }
+
+        /**
+         * Returns how many times showing or hiding was deferred until the button was laid out.
+         */
+        public long getPreDrawDeferrals() {
+            return mPreDrawDeferrals;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "FabMetrics{scrollEvents=%d, directionChanges=%d, "
+                            + "animationsStarted=%d, animationMillis=%d, toggleNoOps=%d, "
+                            + "backgroundRebuilds=%d, preDrawDeferrals=%d}",
+                    mScrollEvents, mDirectionChanges, mAnimationsStarted, mAnimationMillis,
+                    mToggleNoOps, mBackgroundRebuilds, mPreDrawDeferrals);
+        }
+    }
+}
\ No newline at end of file
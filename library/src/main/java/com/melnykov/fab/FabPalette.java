@@ -0,0 +1,120 @@
+package com.melnykov.fab;
+
+/**
+ * The colors of a {@link FloatingActionButton} in its normal, pressed, ripple and disabled
+ * states. Palettes derived from a single color are computed with integer math and memoized, so
+ * they can be resolved once per theme and shared by all buttons.
+ */
+public final class FabPalette {
+    private static final int CACHE_SIZE = 16;
+
+    // Most recently used first
+    private static final int[] sCacheKeys = new int[CACHE_SIZE];
+    private static final FabPalette[] sCacheValues = new FabPalette[CACHE_SIZE];
+    private static int sCacheCount;
+
+    private final int mColorNormal;
+    private final int mColorPressed;
+    private final int mColorRipple;
+    private final int mColorDisabled;
+
+    public FabPalette(int colorNormal, int colorPressed, int colorRipple, int colorDisabled) {
+        mColorNormal = colorNormal;
+        mColorPressed = colorPressed;
+        mColorRipple = colorRipple;
+        mColorDisabled = colorDisabled;
+    }
+
+    /**
+     * Returns the palette derived from the normal color: a darker pressed color, a lighter
+     * ripple color and a gray disabled color of the same luminance.
+     */
+    public static FabPalette of(int colorNormal) {
+        synchronized (sCacheKeys) {
+            for (int i = 0; i < sCacheCount; i++) {
+                if (sCacheKeys[i] == colorNormal) {
+                    FabPalette palette = sCacheValues[i];
+                    moveToFront(i, colorNormal, palette);
+                    return palette;
+                }
+            }
+            FabPalette palette = new FabPalette(colorNormal, pressedColor(colorNormal),
+                    rippleColor(colorNormal), disabledColor(colorNormal));
+            if (sCacheCount < CACHE_SIZE) {
+                sCacheCount++;
+            }
+            moveToFront(sCacheCount - 1, colorNormal, palette);
+            return palette;
+        }
+    }
+
+    /**
+     * Builds a palette from the Material color palette entries of a theme: 500 for the normal,
+     * 700 for the pressed and A200 for the ripple color.
+     */
+    public static FabPalette fromMaterial(int color500, int color700, int colorA200) {
+        return new FabPalette(color500, color700, colorA200, disabledColor(color500));
+    }
+
+    /**
+     * Returns the color with its HSV value reduced by 10%.
+     */
+    public static int pressedColor(int color) {
+        int r = (color >> 16) & 0xff;
+        int g = (color >> 8) & 0xff;
+        int b = color & 0xff;
+        // Scaling all channels by the same factor keeps the hue and the saturation
+        return 0xff000000 | ((r * 9 + 5) / 10) << 16 | ((g * 9 + 5) / 10) << 8 | ((b * 9 + 5) / 10);
+    }
+
+    /**
+     * Returns the color with its HSV value increased by 10%, limited to the maximum value.
+     */
+    public static int rippleColor(int color) {
+        int r = (color >> 16) & 0xff;
+        int g = (color >> 8) & 0xff;
+        int b = color & 0xff;
+        int max = Math.max(r, Math.max(g, b));
+        if (max * 11 <= 255 * 10) {
+            return 0xff000000 | ((r * 11 + 5) / 10) << 16 | ((g * 11 + 5) / 10) << 8
+                    | ((b * 11 + 5) / 10);
+        }
+        int half = max / 2;
+        return 0xff000000 | ((r * 255 + half) / max) << 16 | ((g * 255 + half) / max) << 8
+                | ((b * 255 + half) / max);
+    }
+
+    /**
+     * Returns a gray with the luminance of the color.
+     */
+    public static int disabledColor(int color) {
+        int r = (color >> 16) & 0xff;
+        int g = (color >> 8) & 0xff;
+        int b = color & 0xff;
+        int gray = (r * 77 + g * 150 + b * 29) >> 8;
+        return 0xff000000 | gray << 16 | gray << 8 | gray;
+    }
+
+    private static void moveToFront(int index, int key, FabPalette value) {
+        System.arraycopy(sCacheKeys, 0, sCacheKeys, 1, index);
+        System.arraycopy(sCacheValues, 0, sCacheValues, 1, index);
+        sCacheKeys[0] = key;
+        sCacheValues[0] = value;
+    }
+
+    public int getColorNormal() {
+        return mColorNormal;
+    }
+
+    public int getColorPressed() {
+        return mColorPressed;
+    }
+
+    public int getColorRipple() {
+        return mColorRipple;
+    }
+
+    public int getColorDisabled() {
+        return mColorDisabled;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,76 @@
+package com.melnykov.fab;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.os.Trace;
+
+/**
+ * Systrace / Perfetto sections around the library's hot paths: building the background,
+ * measuring, toggling and handling scroll events. Disabled by default, a disabled section costs a
+ * single static field read. Sections are only recorded on API 18+.
+ */
+public final class FabTrace {
+    private static final Tracer DEFAULT_TRACER = new TraceCompat();
+
+    private static volatile boolean sEnabled;
+    private static volatile Tracer sTracer = DEFAULT_TRACER;
+
+    private FabTrace() {
+    }
+
+    public static void setEnabled(boolean enabled) {
+        sEnabled = enabled && Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2;
+    }
+
+    public static boolean isEnabled() {
+        return sEnabled;
+    }
+
+    /**
+     * Replaces the calls to {@link Trace}, e.g. to check in tests that sections stay balanced.
+     * Null restores the default.
+     */
+    static void setTracer(Tracer tracer) {
+        sTracer = tracer != null ? tracer : DEFAULT_TRACER;
+    }
+
+    /**
+     * Opens a section if tracing is enabled. Pass the result to {@link #endSection(boolean)} on
+     * the same thread in a finally block, so sections stay balanced even if tracing is switched
+     * in between.
+     *
+     * @return whether a section was opened
+     */
+    static boolean beginSection(String sectionName) {
+        if (sEnabled) {
+            sTracer.beginSection(sectionName);
+            return true;
+        }
+        return false;
+    }
+
+    static void endSection(boolean sectionOpened) {
+        if (sectionOpened) {
+            sTracer.endSection();
+        }
+    }
+
+    interface Tracer {
+        void beginSection(String sectionName);
+
+        void endSection();
+    }
+
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN_MR2)
+    private static class TraceCompat implements Tracer {
+        @Override
+        public void beginSection(String sectionName) {
+            Trace.beginSection(sectionName);
+        }
+
+        @Override
+        public void endSection() {
+            Trace.endSection();
+        }
+    }
+}
\ No newline at end of file
@@ -1,13 +1,17 @@
 package com.melnykov.fab;
 
-import android.animation.AnimatorInflater;
+import android.animation.ObjectAnimator;
 import android.animation.StateListAnimator;
 import android.annotation.SuppressLint;
+import android.annotation.TargetApi;
 import android.content.Context;
 import android.content.res.ColorStateList;
+import android.content.res.Configuration;
 import android.content.res.TypedArray;
-import android.graphics.Color;
+import android.graphics.Canvas;
 import android.graphics.Outline;
+import android.graphics.Paint;
+import android.graphics.RectF;
 import android.graphics.drawable.Drawable;
 import android.graphics.drawable.LayerDrawable;
 import android.graphics.drawable.RippleDrawable;
@@ -15,6 +19,7 @@ import android.graphics.drawable.ShapeDrawable;
 import android.graphics.drawable.StateListDrawable;
 import android.graphics.drawable.shapes.OvalShape;
 import android.os.Build;
+import android.os.SystemClock;
 import android.support.annotation.ColorRes;
 import android.support.annotation.DimenRes;
 import android.support.annotation.IntDef;
@@ -31,11 +36,11 @@ import android.widget.AbsListView;
 import android.widget.ImageButton;
 import android.widget.ScrollView;
 
-import com.nineoldandroids.view.ViewHelper;
-import com.nineoldandroids.view.ViewPropertyAnimator;
-
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
 
 public class FloatingActionButton extends ImageButton {
     private static final int TRANSLATE_DURATION_MILLIS = 200;
@@ -48,7 +53,27 @@ public class FloatingActionButton extends ImageButton {
     public static final int TYPE_NORMAL = 0;
     public static final int TYPE_MINI = 1;
 
+    @Retention(RetentionPolicy.SOURCE)
+    @IntDef({STATE_SHOWN, STATE_HIDING, STATE_HIDDEN, STATE_SHOWING})
+    public @interface VisibilityState {
+    }
+
+    public static final int STATE_SHOWN = 0;
+    public static final int STATE_HIDING = 1;
+    public static final int STATE_HIDDEN = 2;
+    public static final int STATE_SHOWING = 3;
+
+    public interface OnVisibilityStateChangedListener {
+        void onVisibilityStateChanged(FloatingActionButton fab, @VisibilityState int state);
+    }
+
     private boolean mVisible;
+    // Direction of the last show or hide call, repeated calls are not counted as no-ops
+    private boolean mLastRequestedVisible = true;
+    private int mVisibilityState;
+    private boolean mHiddenInvisible;
+    private OnVisibilityStateChangedListener mOnVisibilityStateChangedListener;
+    private FabMetrics mMetrics;
 
     private int mColorNormal;
     private int mColorPressed;
@@ -56,14 +81,69 @@ public class FloatingActionButton extends ImageButton {
     private int mColorDisabled;
     private boolean mShadow;
     private int mType;
+    private boolean mHardwareLayerAnimation;
+    private boolean mDirectDraw;
+    private boolean mClipToOutline;
+    private boolean mQuickReturn;
+    private boolean mQuickReturnScrolling;
+    private boolean mInstantPressElevation;
+    private boolean mPressAnimatorCreated;
+
+    private int mSizeNormal;
+    private int mSizeMini;
+    private int mShadowSizeDefault;
+    private int mElevationDefault;
+    private int mPressTranslationZ;
+    private int mCustomSize;
+    private int mCustomElevation = -1;
+    private float mLayoutElevation;
+    private FabGeometry mGeometry;
+
+    // Used by the direct draw mode only
+    private final Paint mCirclePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final RectF mCircleBounds = new RectF();
+    private ShadowDrawable mShadowDrawable;
+    private Drawable mRippleDrawable;
+
+    private ScrollPolicy mScrollPolicy;
+
+    private ViewGroup.LayoutParams mMarginsSetParams;
 
-    private int mShadowSize;
+    private final Interpolator mInterpolator = new AccelerateDecelerateInterpolator();
+
+    private final List<ScrollAttachment> mScrollAttachments = new ArrayList<ScrollAttachment>();
+    private boolean mTogglePending;
+    private boolean mPendingToggleDetached;
+    private boolean mPendingAnimate;
+    private final ViewTreeObserver.OnPreDrawListener mPendingToggle =
+            new ViewTreeObserver.OnPreDrawListener() {
+                @Override
+                public boolean onPreDraw() {
+                    removePendingToggleListener();
+                    mTogglePending = false;
+                    toggle(mVisible, mPendingAnimate, true);
+                    return true;
+                }
+            };
 
-    private int mScrollThreshold;
+    // Start of the running animation for the metrics, -1 if none is running
+    private long mAnimationStartMillis = -1;
+    private final AnimationBackend.Listener mAnimationListener = new AnimationBackend.Listener() {
+        @Override
+        public void onAnimationEnd(boolean canceled) {
+            recordAnimationTime();
+            if (!canceled) {
+                setVisibilityState(mVisible ? STATE_SHOWN : STATE_HIDDEN);
+            }
+        }
+    };
+    private final AnimationBackend mAnimationBackend = AnimationBackend.create(this);
 
-    private boolean mMarginsSet;
+    private FabGroupController mGroupController;
+    private float mGroupStartTranslationY;
+    private float mGroupEndTranslationY;
 
-    private final Interpolator mInterpolator = new AccelerateDecelerateInterpolator();
+    private static ViewOutlineProvider sOutlineProvider;
 
     public FloatingActionButton(Context context) {
         this(context, null);
@@ -81,35 +161,152 @@ public class FloatingActionButton extends ImageButton {
 
     @Override
     protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
-        super.onMeasure(widthMeasureSpec, heightMeasureSpec);
-        int size = getDimension(
-                mType == TYPE_NORMAL ? R.dimen.fab_size_normal : R.dimen.fab_size_mini);
-        if (mShadow && !hasLollipopApi()) {
-            size += mShadowSize * 2;
-            setMarginsWithoutShadow();
+        boolean traced = FabTrace.beginSection("Fab.onMeasure");
+        try {
+            super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+            int size = mGeometry.getMeasuredSize();
+            setMeasuredDimension(size, size);
+        } finally {
+            FabTrace.endSection(traced);
+        }
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        if (mDirectDraw) {
+            updateDirectDrawBounds(w, h);
+        }
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        if (mDirectDraw) {
+            if (mShadowDrawable != null) {
+                mShadowDrawable.draw(canvas);
+            }
+            canvas.drawOval(mCircleBounds, mCirclePaint);
+            if (mRippleDrawable != null) {
+                mRippleDrawable.draw(canvas);
+            }
+        }
+        super.onDraw(canvas);
+    }
+
+    @Override
+    protected void drawableStateChanged() {
+        if (hasLollipopApi()) {
+            updatePressElevation();
+        }
+        super.drawableStateChanged();
+        if (mDirectDraw) {
+            if (mRippleDrawable != null) {
+                mRippleDrawable.setState(getDrawableState());
+            }
+            updateCircleColor();
+        }
+    }
+
+    @TargetApi(Build.VERSION_CODES.LOLLIPOP)
+    @Override
+    public void drawableHotspotChanged(float x, float y) {
+        super.drawableHotspotChanged(x, y);
+        if (mRippleDrawable != null) {
+            mRippleDrawable.setHotspot(x, y);
+        }
+    }
+
+    @Override
+    protected boolean verifyDrawable(Drawable who) {
+        return who == mRippleDrawable || super.verifyDrawable(who);
+    }
+
+    @Override
+    public void jumpDrawablesToCurrentState() {
+        super.jumpDrawablesToCurrentState();
+        if (mRippleDrawable != null) {
+            mRippleDrawable.jumpToCurrentState();
+        }
+    }
+
+    @Override
+    public void setLayoutParams(ViewGroup.LayoutParams params) {
+        setMarginsWithoutShadow(params);
+        super.setLayoutParams(params);
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        // addViewInLayout() sets the layout params directly, this still runs before the parent
+        // measures the button. Reattached views keep their already compensated params.
+        setMarginsWithoutShadow(getLayoutParams());
+        if (hasLollipopApi()) {
+            applyOutline();
+        }
+        for (int i = 0; i < mScrollAttachments.size(); i++) {
+            mScrollAttachments.get(i).register();
+        }
+        if (mPendingToggleDetached) {
+            // A listener added before the first attach was merged into the window's observer
+            mPendingToggleDetached = false;
+            getViewTreeObserver().addOnPreDrawListener(mPendingToggle);
+        }
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        // Don't let the scrolling views and the view tree keep a button which is gone
+        for (int i = 0; i < mScrollAttachments.size(); i++) {
+            mScrollAttachments.get(i).unregister();
+        }
+        if (mTogglePending) {
+            // Keep the request, the listener is added back when the button is attached again
+            removePendingToggleListener();
+            mPendingToggleDetached = true;
+        }
+        super.onDetachedFromWindow();
+    }
+
+    @Override
+    protected void onConfigurationChanged(Configuration newConfig) {
+        super.onConfigurationChanged(newConfig);
+        int oldPressTranslationZ = mPressTranslationZ;
+        resolveDimensions();
+        if (oldPressTranslationZ != mPressTranslationZ && mPressAnimatorCreated) {
+            // Built again with the new value on the next press
+            setStateListAnimatorCompat(null);
+            mPressAnimatorCreated = false;
+        }
+        if (updateGeometry()) {
+            updateBackground();
         }
-        setMeasuredDimension(size, size);
     }
 
     @SuppressLint("NewApi")
     private void init(Context context, AttributeSet attributeSet) {
         mVisible = true;
+        mVisibilityState = STATE_SHOWN;
         mColorNormal = getColor(R.color.material_blue_500);
-        mColorPressed = darkenColor(mColorNormal);
-        mColorRipple = lightenColor(mColorNormal);
+        FabPalette palette = FabPalette.of(mColorNormal);
+        mColorPressed = palette.getColorPressed();
+        mColorRipple = palette.getColorRipple();
         mColorDisabled = getColor(android.R.color.darker_gray);
         mType = TYPE_NORMAL;
         mShadow = true;
-        mScrollThreshold = getResources().getDimensionPixelOffset(R.dimen.fab_scroll_threshold);
-        mShadowSize = getDimension(R.dimen.fab_shadow_size);
+        mScrollPolicy = new HysteresisScrollPolicy(
+                getResources().getDimensionPixelOffset(R.dimen.fab_scroll_threshold), 0, 0);
+        resolveDimensions();
         if (hasLollipopApi()) {
-            StateListAnimator stateListAnimator = AnimatorInflater.loadStateListAnimator(context,
-                    R.anim.fab_press_elevation);
-            setStateListAnimator(stateListAnimator);
+            // android:elevation from the layout, used instead of the default elevation
+            mLayoutElevation = getElevation();
+            // Replaced by our own animator, which is only created when the button is first pressed
+            setStateListAnimatorCompat(null);
         }
         if (attributeSet != null) {
             initAttributes(context, attributeSet);
         }
+        updateGeometry();
         updateBackground();
     }
 
@@ -119,14 +316,33 @@ public class FloatingActionButton extends ImageButton {
             try {
                 mColorNormal = attr.getColor(R.styleable.FloatingActionButton_fab_colorNormal,
                         getColor(R.color.material_blue_500));
+                FabPalette palette = FabPalette.of(mColorNormal);
                 mColorPressed = attr.getColor(R.styleable.FloatingActionButton_fab_colorPressed,
-                        darkenColor(mColorNormal));
+                        palette.getColorPressed());
                 mColorRipple = attr.getColor(R.styleable.FloatingActionButton_fab_colorRipple,
-                        lightenColor(mColorNormal));
+                        palette.getColorRipple());
                 mColorDisabled = attr.getColor(R.styleable.FloatingActionButton_fab_colorDisabled,
                         mColorDisabled);
                 mShadow = attr.getBoolean(R.styleable.FloatingActionButton_fab_shadow, true);
+                mHardwareLayerAnimation = attr.getBoolean(
+                        R.styleable.FloatingActionButton_fab_hardwareLayerAnimation, false);
+                mDirectDraw = attr.getBoolean(R.styleable.FloatingActionButton_fab_directDraw, false);
+                mQuickReturn = attr.getBoolean(R.styleable.FloatingActionButton_fab_quickReturn, false);
+                mInstantPressElevation = attr.getBoolean(
+                        R.styleable.FloatingActionButton_fab_instantPressElevation, false);
                 mType = attr.getInt(R.styleable.FloatingActionButton_fab_type, TYPE_NORMAL);
+                mCustomSize = attr.getDimensionPixelSize(R.styleable.FloatingActionButton_fab_size, 0);
+                mCustomElevation = attr.getDimensionPixelSize(
+                        R.styleable.FloatingActionButton_fab_elevation, -1);
+                int scrollHysteresis = attr.getDimensionPixelOffset(
+                        R.styleable.FloatingActionButton_fab_scrollHysteresis,
+                        getResources().getDimensionPixelOffset(R.dimen.fab_scroll_threshold));
+                int scrollMinToggleInterval = attr.getInt(
+                        R.styleable.FloatingActionButton_fab_scrollMinToggleInterval, 0);
+                int scrollFlingVelocity = attr.getDimensionPixelOffset(
+                        R.styleable.FloatingActionButton_fab_scrollFlingVelocity, 0);
+                mScrollPolicy = new HysteresisScrollPolicy(scrollHysteresis,
+                        scrollMinToggleInterval, scrollFlingVelocity);
             } finally {
                 attr.recycle();
             }
@@ -134,29 +350,163 @@ public class FloatingActionButton extends ImageButton {
     }
 
     private void updateBackground() {
-        StateListDrawable drawable = new StateListDrawable();
-        drawable.addState(new int[]{android.R.attr.state_pressed}, createDrawable(mColorPressed));
-        drawable.addState(new int[]{-android.R.attr.state_enabled}, createDrawable(mColorDisabled));
-        drawable.addState(new int[]{}, createDrawable(mColorNormal));
-        setBackgroundCompat(drawable);
+        boolean traced = FabTrace.beginSection("Fab.updateBackground");
+        try {
+            FabMetrics.record(mMetrics, FabMetrics.BACKGROUND_REBUILDS);
+            if (mDirectDraw) {
+                updateDirectDraw();
+                return;
+            }
+            FabDrawableCache.Key key = new FabDrawableCache.Key(mColorNormal, mColorPressed,
+                    mColorDisabled, mGeometry.getShadowSize(), getResources().getDisplayMetrics().densityDpi);
+            Drawable drawable = FabDrawableCache.get(getResources(), key);
+            if (drawable == null) {
+                StateListDrawable stateListDrawable = new StateListDrawable();
+                stateListDrawable.addState(new int[]{android.R.attr.state_pressed}, createDrawable(mColorPressed));
+                stateListDrawable.addState(new int[]{-android.R.attr.state_enabled}, createDrawable(mColorDisabled));
+                stateListDrawable.addState(new int[]{}, createDrawable(mColorNormal));
+                // The new drawable only serves as the template, this button gets a copy as well
+                drawable = FabDrawableCache.put(getResources(), key, stateListDrawable);
+            }
+            setBackgroundCompat(drawable);
+        } finally {
+            FabTrace.endSection(traced);
+        }
     }
 
     private Drawable createDrawable(int color) {
-        OvalShape ovalShape = new OvalShape();
-        ShapeDrawable shapeDrawable = new ShapeDrawable(ovalShape);
-        shapeDrawable.getPaint().setColor(color);
-
-        if (mShadow && !hasLollipopApi()) {
-            Drawable shadowDrawable = getResources().getDrawable(mType == TYPE_NORMAL ? R.drawable.fab_shadow
-                    : R.drawable.fab_shadow_mini);
-            LayerDrawable layerDrawable = new LayerDrawable(new Drawable[]{shadowDrawable, shapeDrawable});
-            layerDrawable.setLayerInset(1, mShadowSize, mShadowSize, mShadowSize, mShadowSize);
-            return layerDrawable;
+        boolean traced = FabTrace.beginSection("Fab.createDrawable");
+        try {
+            OvalShape ovalShape = new OvalShape();
+            ShapeDrawable shapeDrawable = new ShapeDrawable(ovalShape);
+            shapeDrawable.getPaint().setColor(color);
+
+            int shadowSize = mGeometry.getShadowSize();
+            if (shadowSize > 0) {
+                Drawable shadowDrawable = new ShadowDrawable(shadowSize);
+                LayerDrawable layerDrawable = new LayerDrawable(new Drawable[]{shadowDrawable, shapeDrawable});
+                layerDrawable.setLayerInset(1, shadowSize, shadowSize, shadowSize, shadowSize);
+                return layerDrawable;
+            } else {
+                return shapeDrawable;
+            }
+        } finally {
+            FabTrace.endSection(traced);
+        }
+    }
+
+    @SuppressWarnings("deprecation")
+    @SuppressLint("NewApi")
+    private void updateDirectDraw() {
+        int shadowSize = mGeometry.getShadowSize();
+        if (shadowSize == 0) {
+            mShadowDrawable = null;
+        } else if (mShadowDrawable == null || mShadowDrawable.getShadowSize() != shadowSize) {
+            mShadowDrawable = new ShadowDrawable(shadowSize);
+        }
+        if (hasLollipopApi()) {
+            setElevationAndOutline(false);
+            if (mRippleDrawable != null) {
+                mRippleDrawable.setCallback(null);
+            }
+            // Without content the ripple only draws itself, clipped to the oval mask
+            mRippleDrawable = new RippleDrawable(new ColorStateList(new int[][]{{}},
+                    new int[]{mColorRipple}), null, new ShapeDrawable(new OvalShape()));
+            mRippleDrawable.setCallback(this);
+            mRippleDrawable.setState(getDrawableState());
+            setBackground(null);
+        } else if (hasJellyBeanApi()) {
+            setBackground(null);
         } else {
-            return shapeDrawable;
+            setBackgroundDrawable(null);
+        }
+        updateDirectDrawBounds(getWidth(), getHeight());
+        updateCircleColor();
+        invalidate();
+    }
+
+    private void updateDirectDrawBounds(int width, int height) {
+        int shadowSize = mGeometry.getShadowSize();
+        mCircleBounds.set(shadowSize, shadowSize, width - shadowSize, height - shadowSize);
+        if (mShadowDrawable != null) {
+            mShadowDrawable.setBounds(0, 0, width, height);
+        }
+        if (mRippleDrawable != null) {
+            mRippleDrawable.setBounds(shadowSize, shadowSize, width - shadowSize, height - shadowSize);
+        }
+    }
+
+    private void updateCircleColor() {
+        int color = !isEnabled() ? mColorDisabled : isPressed() ? mColorPressed : mColorNormal;
+        if (color != mCirclePaint.getColor()) {
+            mCirclePaint.setColor(color);
+            invalidate();
+        }
+    }
+
+    private void resolveDimensions() {
+        mSizeNormal = getDimension(R.dimen.fab_size_normal);
+        mSizeMini = getDimension(R.dimen.fab_size_mini);
+        mShadowSizeDefault = getDimension(R.dimen.fab_shadow_size);
+        mElevationDefault = getDimension(R.dimen.fab_elevation_lollipop);
+        mPressTranslationZ = getDimension(R.dimen.fab_press_translation_z);
+    }
+
+    @TargetApi(Build.VERSION_CODES.LOLLIPOP)
+    private void updatePressElevation() {
+        if (mInstantPressElevation) {
+            setTranslationZ(isEnabled() && isPressed() ? mPressTranslationZ : 0.0f);
+        } else if (!mPressAnimatorCreated && isPressed()) {
+            // Set before the state is dispatched, so it already animates this press
+            setStateListAnimatorCompat(createPressAnimator());
+            mPressAnimatorCreated = true;
         }
     }
 
+    @TargetApi(Build.VERSION_CODES.LOLLIPOP)
+    private StateListAnimator createPressAnimator() {
+        long duration = getResources().getInteger(android.R.integer.config_shortAnimTime);
+        StateListAnimator stateListAnimator = new StateListAnimator();
+        stateListAnimator.addState(new int[]{android.R.attr.state_enabled, android.R.attr.state_pressed},
+                ObjectAnimator.ofFloat(this, View.TRANSLATION_Z, mPressTranslationZ).setDuration(duration));
+        stateListAnimator.addState(new int[]{},
+                ObjectAnimator.ofFloat(this, View.TRANSLATION_Z, 0.0f).setDuration(duration));
+        return stateListAnimator;
+    }
+
+    @TargetApi(Build.VERSION_CODES.LOLLIPOP)
+    private void setStateListAnimatorCompat(StateListAnimator stateListAnimator) {
+        setStateListAnimator(stateListAnimator);
+    }
+
+    /**
+     * Recomputes the geometry from the type, custom size, elevation and shadow, and requests a
+     * layout if it changed.
+     *
+     * @return whether the shadow size changed, in which case the background has to be rebuilt
+     */
+    private boolean updateGeometry() {
+        int size = mCustomSize > 0 ? mCustomSize : mType == TYPE_NORMAL ? mSizeNormal : mSizeMini;
+        int elevation = mCustomElevation >= 0 ? mCustomElevation : mElevationDefault;
+        int shadowSize = 0;
+        if (mShadow && !hasLollipopApi() && mElevationDefault > 0) {
+            // The default shadow size matches the default elevation, scale it for other elevations
+            shadowSize = mShadowSizeDefault * elevation / mElevationDefault;
+        }
+        FabGeometry geometry = new FabGeometry(size, elevation, shadowSize);
+        FabGeometry oldGeometry = mGeometry;
+        if (geometry.equals(oldGeometry)) {
+            return false;
+        }
+        mGeometry = geometry;
+        if (oldGeometry == null) {
+            return true;
+        }
+        updateMarginsWithoutShadow(oldGeometry.getShadowSize(), shadowSize);
+        requestLayout();
+        return oldGeometry.getShadowSize() != shadowSize;
+    }
+
     private TypedArray getTypedArray(Context context, AttributeSet attributeSet, int[] attr) {
         return context.obtainStyledAttributes(attributeSet, attr, 0, 0);
     }
@@ -169,45 +519,42 @@ public class FloatingActionButton extends ImageButton {
         return getResources().getDimensionPixelSize(id);
     }
 
-    private void setMarginsWithoutShadow() {
-        if (!mMarginsSet) {
-            if (getLayoutParams() instanceof ViewGroup.MarginLayoutParams) {
-                ViewGroup.MarginLayoutParams layoutParams = (ViewGroup.MarginLayoutParams) getLayoutParams();
-                int leftMargin = layoutParams.leftMargin - mShadowSize;
-                int topMargin = layoutParams.topMargin - mShadowSize;
-                int rightMargin = layoutParams.rightMargin - mShadowSize;
-                int bottomMargin = layoutParams.bottomMargin - mShadowSize;
+    // Compensate the shadow padding while the layout params are being set, so it doesn't
+    // cost an extra layout pass later. Each layout params instance is only compensated once.
+    private void setMarginsWithoutShadow(ViewGroup.LayoutParams params) {
+        if (params != mMarginsSetParams && !hasLollipopApi()) {
+            if (params instanceof ViewGroup.MarginLayoutParams) {
+                ViewGroup.MarginLayoutParams layoutParams = (ViewGroup.MarginLayoutParams) params;
+                int shadowSize = mGeometry.getShadowSize();
+                int leftMargin = layoutParams.leftMargin - shadowSize;
+                int topMargin = layoutParams.topMargin - shadowSize;
+                int rightMargin = layoutParams.rightMargin - shadowSize;
+                int bottomMargin = layoutParams.bottomMargin - shadowSize;
                 layoutParams.setMargins(leftMargin, topMargin, rightMargin, bottomMargin);
 
-                requestLayout();
-                mMarginsSet = true;
+                mMarginsSetParams = params;
             }
         }
     }
 
+    private void updateMarginsWithoutShadow(int oldShadowSize, int newShadowSize) {
+        ViewGroup.LayoutParams params = getLayoutParams();
+        if (params == mMarginsSetParams && oldShadowSize != newShadowSize
+                && params instanceof ViewGroup.MarginLayoutParams) {
+            ViewGroup.MarginLayoutParams layoutParams = (ViewGroup.MarginLayoutParams) params;
+            int delta = oldShadowSize - newShadowSize;
+            layoutParams.setMargins(layoutParams.leftMargin + delta, layoutParams.topMargin + delta,
+                    layoutParams.rightMargin + delta, layoutParams.bottomMargin + delta);
+        }
+    }
+
     @SuppressWarnings("deprecation")
     @SuppressLint("NewApi")
     private void setBackgroundCompat(Drawable drawable) {
         if (hasLollipopApi()) {
-            float elevation;
-            if (mShadow) {
-                elevation = getElevation() > 0.0f ? getElevation()
-                        : getDimension(R.dimen.fab_elevation_lollipop);
-            } else {
-                elevation = 0.0f;
-            }
-            setElevation(elevation);
+            setElevationAndOutline(true);
             RippleDrawable rippleDrawable = new RippleDrawable(new ColorStateList(new int[][]{{}},
                     new int[]{mColorRipple}), drawable, null);
-            setOutlineProvider(new ViewOutlineProvider() {
-                @Override
-                public void getOutline(View view, Outline outline) {
-                    int size = getDimension(mType == TYPE_NORMAL ? R.dimen.fab_size_normal
-                            : R.dimen.fab_size_mini);
-                    outline.setOval(0, 0, size, size);
-                }
-            });
-            setClipToOutline(true);
             setBackground(rippleDrawable);
         } else if (hasJellyBeanApi()) {
             setBackground(drawable);
@@ -216,6 +563,32 @@ public class FloatingActionButton extends ImageButton {
         }
     }
 
+    @TargetApi(Build.VERSION_CODES.LOLLIPOP)
+    private void setElevationAndOutline(boolean clipToOutline) {
+        float elevation;
+        if (mShadow) {
+            elevation = mCustomElevation < 0 && mLayoutElevation > 0.0f ? mLayoutElevation
+                    : mGeometry.getElevation();
+        } else {
+            elevation = 0.0f;
+        }
+        setElevation(elevation);
+        mClipToOutline = clipToOutline;
+        if (isAttachedToWindow()) {
+            applyOutline();
+        }
+    }
+
+    // Only called on the main thread, so a button can be constructed on any thread
+    @TargetApi(Build.VERSION_CODES.LOLLIPOP)
+    private void applyOutline() {
+        if (sOutlineProvider == null) {
+            sOutlineProvider = new FabOutlineProvider();
+        }
+        setOutlineProvider(sOutlineProvider);
+        setClipToOutline(mClipToOutline);
+    }
+
     private int getMarginBottom() {
         int marginBottom = 0;
         final ViewGroup.LayoutParams layoutParams = getLayoutParams();
@@ -270,9 +643,17 @@ public class FloatingActionButton extends ImageButton {
         return mColorRipple;
     }
 
+    /**
+     * Applies the normal, pressed, ripple and disabled colors of the palette at once.
+     */
+    public void setPalette(@NonNull FabPalette palette) {
+        edit().palette(palette).commit();
+    }
+
     public void setShadow(boolean shadow) {
         if (shadow != mShadow) {
             mShadow = shadow;
+            updateGeometry();
             updateBackground();
         }
     }
@@ -284,7 +665,7 @@ public class FloatingActionButton extends ImageButton {
     public void setType(@TYPE int type) {
         if (type != mType) {
             mType = type;
-            updateBackground();
+            updateGeometry();
         }
     }
 
@@ -293,10 +674,165 @@ public class FloatingActionButton extends ImageButton {
         return mType;
     }
 
+    /**
+     * Sets the diameter of the button in pixels, overriding the size of its type. Pass 0 to go
+     * back to the size of the type. Only triggers a layout, the background is reused.
+     */
+    public void setSize(int size) {
+        if (size != mCustomSize) {
+            mCustomSize = size;
+            updateGeometry();
+        }
+    }
+
+    /**
+     * Returns the diameter of the button in pixels, without the pre-Lollipop shadow.
+     */
+    public int getSize() {
+        return mGeometry.getSize();
+    }
+
+    /**
+     * Sets the elevation in pixels. It is the view elevation on Lollipop and scales the drawn
+     * shadow on older versions. Pass a negative value to go back to the default elevation.
+     */
+    public void setElevationCompat(int elevation) {
+        if (elevation < 0) {
+            elevation = -1;
+        }
+        if (elevation != mCustomElevation) {
+            mCustomElevation = elevation;
+            if (updateGeometry() || hasLollipopApi()) {
+                updateBackground();
+            }
+        }
+    }
+
+    public int getElevationCompat() {
+        return mGeometry.getElevation();
+    }
+
+    /**
+     * Sets the policy used by scrolling views attached after this call.
+     */
+    public void setScrollPolicy(@NonNull ScrollPolicy scrollPolicy) {
+        mScrollPolicy = scrollPolicy;
+    }
+
+    public ScrollPolicy getScrollPolicy() {
+        return mScrollPolicy;
+    }
+
+    public Editor edit() {
+        return new Editor();
+    }
+
+    /**
+     * Renders the button into a hardware layer while it is being shown or hidden, so the
+     * background and shadow are not redrawn on every frame. Has no effect before API 11.
+     */
+    public void setHardwareLayerAnimation(boolean hardwareLayerAnimation) {
+        mHardwareLayerAnimation = hardwareLayerAnimation;
+    }
+
+    public boolean hasHardwareLayerAnimation() {
+        return mHardwareLayerAnimation;
+    }
+
+    /**
+     * Draws the circle, its pressed color and the pre-Lollipop shadow in {@link #onDraw(Canvas)}
+     * instead of a stack of background drawables, which saves draw calls, overdraw and the outline
+     * clipping. The ripple is still drawn on Lollipop.
+     */
+    public void setDirectDraw(boolean directDraw) {
+        if (directDraw != mDirectDraw) {
+            mDirectDraw = directDraw;
+            if (!directDraw) {
+                if (mRippleDrawable != null) {
+                    mRippleDrawable.setCallback(null);
+                    mRippleDrawable = null;
+                }
+                mShadowDrawable = null;
+            }
+            updateBackground();
+        }
+    }
+
+    public boolean isDirectDraw() {
+        return mDirectDraw;
+    }
+
+    /**
+     * Raises the button on press by setting its translationZ directly instead of animating it with
+     * a StateListAnimator. Has no effect before API 21.
+     */
+    @SuppressLint("NewApi")
+    public void setInstantPressElevation(boolean instantPressElevation) {
+        if (instantPressElevation != mInstantPressElevation) {
+            mInstantPressElevation = instantPressElevation;
+            if (hasLollipopApi()) {
+                setStateListAnimatorCompat(null);
+                mPressAnimatorCreated = false;
+                setTranslationZ(0.0f);
+                updatePressElevation();
+            }
+        }
+    }
+
+    public boolean hasInstantPressElevation() {
+        return mInstantPressElevation;
+    }
+
+    /**
+     * Makes the button follow the scrolled distance of the attached views frame by frame instead
+     * of animating in and out when the direction changes. When scrolling stops, the button snaps
+     * to the closer of the shown and hidden positions.
+     */
+    public void setQuickReturn(boolean quickReturn) {
+        if (quickReturn != mQuickReturn) {
+            if (!quickReturn) {
+                onQuickReturnIdle();
+            }
+            mQuickReturn = quickReturn;
+            for (int i = 0; i < mScrollAttachments.size(); i++) {
+                mScrollAttachments.get(i).setQuickReturn(quickReturn);
+            }
+        }
+    }
+
+    public boolean isQuickReturn() {
+        return mQuickReturn;
+    }
+
+    /**
+     * Returns whether the button is shown or being shown. Use {@link #getVisibilityState()} to
+     * find out whether an animation is still running.
+     */
     public boolean isVisible() {
         return mVisible;
     }
 
+    @VisibilityState
+    public int getVisibilityState() {
+        return mVisibilityState;
+    }
+
+    public void setOnVisibilityStateChangedListener(OnVisibilityStateChangedListener listener) {
+        mOnVisibilityStateChangedListener = listener;
+    }
+
+    /**
+     * Records what this button does into the given metrics, in addition to the global ones set
+     * with {@link FabMetrics#setGlobal(FabMetrics)}. Pass null to stop.
+     */
+    public void setMetrics(FabMetrics metrics) {
+        mMetrics = metrics;
+    }
+
+    public FabMetrics getMetrics() {
+        return mMetrics;
+    }
+
     public void show() {
         show(true);
     }
@@ -313,40 +849,223 @@ public class FloatingActionButton extends ImageButton {
         toggle(false, animate, false);
     }
 
-    private void toggle(final boolean visible, final boolean animate, boolean force) {
-        if (mVisible != visible || force) {
+    /**
+     * Hands the button over to the single animation of {@link FabGroupController}, which moves
+     * it with {@link #setGroupProgress(float)} once the start delay has passed. Returns the
+     * duration of the button's part of that animation, or 0 if it has been toggled right away
+     * because there is nothing to animate.
+     */
+    long startGroupToggle(FabGroupController controller, boolean visible, long startDelay) {
+        int height = getHeight();
+        int hiddenTranslationY = height + getMarginBottom();
+        float startTranslationY = mAnimationBackend.getTranslationY();
+        float endTranslationY = visible ? 0 : hiddenTranslationY;
+        float distance = Math.abs(endTranslationY - startTranslationY);
+        if (mVisible == visible || height == 0 || distance == 0 || hiddenTranslationY <= 0) {
+            toggle(visible, true, false);
+            return 0;
+        }
+        boolean traced = FabTrace.beginSection("Fab.toggle");
+        try {
+            leaveGroupAnimation();
+            mAnimationBackend.cancel();
             mVisible = visible;
-            int height = getHeight();
-            if (height == 0 && !force) {
-                ViewTreeObserver vto = getViewTreeObserver();
-                if (vto.isAlive()) {
-                    vto.addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
-                        @Override
-                        public boolean onPreDraw() {
-                            ViewTreeObserver currentVto = getViewTreeObserver();
-                            if (currentVto.isAlive()) {
-                                currentVto.removeOnPreDrawListener(this);
-                            }
-                            toggle(visible, animate, true);
-                            return true;
+            mLastRequestedVisible = visible;
+            mGroupController = controller;
+            mGroupStartTranslationY = startTranslationY;
+            mGroupEndTranslationY = endTranslationY;
+            long duration = (long) (TRANSLATE_DURATION_MILLIS
+                    * Math.min(1.0f, distance / hiddenTranslationY));
+            setVisibilityState(visible ? STATE_SHOWING : STATE_HIDING);
+            if (mHardwareLayerAnimation) {
+                mAnimationBackend.setLayerEnabled(true);
+            }
+            if (!hasHoneycombApi()) {
+                setClickable(visible);
+            }
+            FabMetrics.record(mMetrics, FabMetrics.ANIMATIONS_STARTED);
+            mAnimationStartMillis = SystemClock.uptimeMillis() + startDelay;
+            return duration;
+        } finally {
+            FabTrace.endSection(traced);
+        }
+    }
+
+    /**
+     * Moves the button between the positions taken in {@link #startGroupToggle}.
+     *
+     * @param progress interpolated progress of the button's part of the group animation
+     */
+    void setGroupProgress(float progress) {
+        mAnimationBackend.setTranslationY(mGroupStartTranslationY
+                + (mGroupEndTranslationY - mGroupStartTranslationY) * progress);
+    }
+
+    /**
+     * Called by the controller once the button has reached its position.
+     */
+    void finishGroupToggle() {
+        stopGroupToggle();
+        setVisibilityState(mVisible ? STATE_SHOWN : STATE_HIDDEN);
+    }
+
+    /**
+     * Called by the controller when it stops moving the button before it has arrived, the
+     * button stays where it is.
+     */
+    void stopGroupToggle() {
+        mGroupController = null;
+        mAnimationBackend.setLayerEnabled(false);
+        recordAnimationTime();
+    }
+
+    private void recordAnimationTime() {
+        if (mAnimationStartMillis >= 0) {
+            // A group animation may be stopped while the button still waits for its start delay
+            long elapsed = Math.max(0, SystemClock.uptimeMillis() - mAnimationStartMillis);
+            FabMetrics.record(mMetrics, FabMetrics.ANIMATION_MILLIS, elapsed);
+            mAnimationStartMillis = -1;
+        }
+    }
+
+    private void leaveGroupAnimation() {
+        if (mGroupController != null) {
+            // Calls stopGroupToggle()
+            mGroupController.onButtonLeft(this);
+        }
+    }
+
+    private void toggle(boolean visible, boolean animate, boolean force) {
+        boolean traced = FabTrace.beginSection("Fab.toggle");
+        try {
+            boolean repeated = !force && visible == mLastRequestedVisible;
+            if (!force) {
+                mLastRequestedVisible = visible;
+            }
+            if (mVisible != visible || force) {
+                leaveGroupAnimation();
+                mVisible = visible;
+                int height = getHeight();
+                if (height == 0 && !force) {
+                    ViewTreeObserver vto = getViewTreeObserver();
+                    if (vto.isAlive()) {
+                        // Only the latest request matters, so a single listener is enough
+                        mPendingAnimate = animate;
+                        if (!mTogglePending) {
+                            mTogglePending = true;
+                            vto.addOnPreDrawListener(mPendingToggle);
                         }
-                    });
-                    return;
+                        FabMetrics.record(mMetrics, FabMetrics.PRE_DRAW_DEFERRALS);
+                        return;
+                    }
                 }
+                int hiddenTranslationY = height + getMarginBottom();
+                int translationY = visible ? 0 : hiddenTranslationY;
+                if (animate) {
+                    // Start from the current position, which may be in the middle of the opposite animation
+                    float distance = Math.abs(translationY - mAnimationBackend.getTranslationY());
+                    if (distance > 0 && hiddenTranslationY > 0) {
+                        long duration = (long) (TRANSLATE_DURATION_MILLIS
+                                * Math.min(1.0f, distance / hiddenTranslationY));
+                        setVisibilityState(visible ? STATE_SHOWING : STATE_HIDING);
+                        // The replaced animation only reports its end once the new one is set up
+                        recordAnimationTime();
+                        mAnimationBackend.animateTranslationY(translationY, duration,
+                                mInterpolator, mHardwareLayerAnimation, mAnimationListener);
+                        FabMetrics.record(mMetrics, FabMetrics.ANIMATIONS_STARTED);
+                        mAnimationStartMillis = SystemClock.uptimeMillis();
+                    } else {
+                        // An animation which has been queued but not started yet hasn't moved
+                        // the button, it must not run anymore
+                        mAnimationBackend.cancel();
+                        setVisibilityState(visible ? STATE_SHOWN : STATE_HIDDEN);
+                    }
+                } else {
+                    mAnimationBackend.cancel();
+                    mAnimationBackend.setTranslationY(translationY);
+                    setVisibilityState(visible ? STATE_SHOWN : STATE_HIDDEN);
+                }
+
+                // On pre-Honeycomb a translated view is still clickable at its original position while it
+                // is being hidden, so we need to disable clicks manually until it becomes invisible
+                if (!hasHoneycombApi()) {
+                    setClickable(visible);
+                }
+            } else if (!repeated) {
+                FabMetrics.record(mMetrics, FabMetrics.TOGGLE_NO_OPS);
             }
-            int translationY = visible ? 0 : height + getMarginBottom();
-            if (animate) {
-                ViewPropertyAnimator.animate(this).setInterpolator(mInterpolator)
-                        .setDuration(TRANSLATE_DURATION_MILLIS)
-                        .translationY(translationY);
-            } else {
-                ViewHelper.setTranslationY(this, translationY);
-            }
+        } finally {
+            FabTrace.endSection(traced);
+        }
+    }
 
-            // On pre-Honeycomb a translated view is still clickable, so we need to disable clicks manually
-            if (!hasHoneycombApi()) {
-                setClickable(visible);
+    private void onQuickReturnScrolled(int delta) {
+        int hiddenTranslationY = getHeight() + getMarginBottom();
+        if (!mQuickReturn || hiddenTranslationY <= 0) {
+            return;
+        }
+        float currentTranslationY = mAnimationBackend.getTranslationY();
+        float translationY = Math.max(0, Math.min(hiddenTranslationY, currentTranslationY + delta));
+        if (translationY == currentTranslationY) {
+            return;
+        }
+        if (!mQuickReturnScrolling) {
+            // Stops a snap or another animation which is still running
+            leaveGroupAnimation();
+            mAnimationBackend.cancel();
+            mQuickReturnScrolling = true;
+        }
+        mAnimationBackend.setTranslationY(translationY);
+        mVisible = delta < 0;
+        if (translationY == 0) {
+            setVisibilityState(STATE_SHOWN);
+        } else if (translationY == hiddenTranslationY) {
+            setVisibilityState(STATE_HIDDEN);
+        } else {
+            setVisibilityState(mVisible ? STATE_SHOWING : STATE_HIDING);
+        }
+
+        if (!hasHoneycombApi()) {
+            setClickable(mVisible);
+        }
+    }
+
+    private void onQuickReturnIdle() {
+        if (!mQuickReturn || !mQuickReturnScrolling) {
+            return;
+        }
+        mQuickReturnScrolling = false;
+        int hiddenTranslationY = getHeight() + getMarginBottom();
+        boolean visible = mAnimationBackend.getTranslationY() < hiddenTranslationY / 2f;
+        toggle(visible, true, true);
+    }
+
+    private void setVisibilityState(@VisibilityState int state) {
+        if (state != mVisibilityState) {
+            mVisibilityState = state;
+            // Once hidden the button is offscreen, so it is left out of drawing and touch handling
+            // until it starts showing again. Visibility set by the app is left alone.
+            if (state == STATE_HIDDEN) {
+                if (getVisibility() == VISIBLE) {
+                    setVisibility(INVISIBLE);
+                    mHiddenInvisible = true;
+                }
+            } else if (mHiddenInvisible) {
+                mHiddenInvisible = false;
+                if (getVisibility() == INVISIBLE) {
+                    setVisibility(VISIBLE);
+                }
             }
+            if (mOnVisibilityStateChangedListener != null) {
+                mOnVisibilityStateChangedListener.onVisibilityStateChanged(this, state);
+            }
+        }
+    }
+
+    private void removePendingToggleListener() {
+        ViewTreeObserver vto = getViewTreeObserver();
+        if (vto.isAlive()) {
+            vto.removeOnPreDrawListener(mPendingToggle);
         }
     }
 
@@ -380,32 +1099,80 @@ public class FloatingActionButton extends ImageButton {
     public void attachToListView(@NonNull AbsListView listView,
                                  ScrollDirectionListener scrollDirectionListener,
                                  AbsListView.OnScrollListener onScrollListener) {
-        AbsListViewScrollDetectorImpl scrollDetector = new AbsListViewScrollDetectorImpl();
+        AbsListViewScrollDetectorImpl scrollDetector = new AbsListViewScrollDetectorImpl(this, listView);
         scrollDetector.setScrollDirectionListener(scrollDirectionListener);
         scrollDetector.setOnScrollListener(onScrollListener);
-        scrollDetector.setListView(listView);
-        scrollDetector.setScrollThreshold(mScrollThreshold);
-        listView.setOnScrollListener(scrollDetector);
+        scrollDetector.setScrollPolicy(mScrollPolicy.copy());
+        // The app may have replaced the composite with setOnScrollListener() since it was installed
+        CompositeOnScrollListener.of(listView, null);
+        addScrollAttachment(scrollDetector);
     }
 
     public void attachToRecyclerView(@NonNull RecyclerView recyclerView,
                                      ScrollDirectionListener scrollDirectionlistener,
                                      RecyclerView.OnScrollListener onScrollListener) {
-        RecyclerViewScrollDetectorImpl scrollDetector = new RecyclerViewScrollDetectorImpl();
+        RecyclerViewScrollDetectorImpl scrollDetector = new RecyclerViewScrollDetectorImpl(this, recyclerView);
         scrollDetector.setScrollDirectionListener(scrollDirectionlistener);
         scrollDetector.setOnScrollListener(onScrollListener);
-        scrollDetector.setScrollThreshold(mScrollThreshold);
-        recyclerView.addOnScrollListener(scrollDetector);
+        scrollDetector.setScrollPolicy(mScrollPolicy.copy());
+        addScrollAttachment(scrollDetector);
     }
 
     public void attachToScrollView(@NonNull ObservableScrollView scrollView,
                                    ScrollDirectionListener scrollDirectionListener,
                                    ObservableScrollView.OnScrollChangedListener onScrollChangedListener) {
-        ScrollViewScrollDetectorImpl scrollDetector = new ScrollViewScrollDetectorImpl();
+        ScrollViewScrollDetectorImpl scrollDetector = new ScrollViewScrollDetectorImpl(this, scrollView);
         scrollDetector.setScrollDirectionListener(scrollDirectionListener);
         scrollDetector.setOnScrollChangedListener(onScrollChangedListener);
-        scrollDetector.setScrollThreshold(mScrollThreshold);
-        scrollView.setOnScrollChangedListener(scrollDetector);
+        scrollDetector.setScrollPolicy(mScrollPolicy.copy());
+        addScrollAttachment(scrollDetector);
+    }
+
+    /**
+     * Follows the vertical scroll position of any view, e.g. a plain {@link ScrollView}, a
+     * NestedScrollView or a WebView, through {@link ViewTreeObserver.OnScrollChangedListener}.
+     */
+    public void attachToView(@NonNull View view) {
+        attachToView(view, null);
+    }
+
+    public void attachToView(@NonNull View view, ScrollDirectionListener scrollDirectionListener) {
+        ViewScrollDetectorImpl scrollDetector = new ViewScrollDetectorImpl(this, view);
+        scrollDetector.setScrollDirectionListener(scrollDirectionListener);
+        scrollDetector.setScrollPolicy(mScrollPolicy.copy());
+        addScrollAttachment(scrollDetector);
+    }
+
+    public void detachFromListView(@NonNull AbsListView listView) {
+        removeScrollAttachment(listView);
+    }
+
+    public void detachFromRecyclerView(@NonNull RecyclerView recyclerView) {
+        removeScrollAttachment(recyclerView);
+    }
+
+    public void detachFromScrollView(@NonNull ObservableScrollView scrollView) {
+        removeScrollAttachment(scrollView);
+    }
+
+    public void detachFromView(@NonNull View view) {
+        removeScrollAttachment(view);
+    }
+
+    private void addScrollAttachment(ScrollAttachment attachment) {
+        attachment.setQuickReturn(mQuickReturn);
+        mScrollAttachments.add(attachment);
+        attachment.register();
+    }
+
+    private void removeScrollAttachment(View target) {
+        for (int i = mScrollAttachments.size() - 1; i >= 0; i--) {
+            ScrollAttachment attachment = mScrollAttachments.get(i);
+            if (attachment.isAttachedTo(target)) {
+                attachment.unregister();
+                mScrollAttachments.remove(i);
+            }
+        }
     }
 
     private boolean hasLollipopApi() {
@@ -420,23 +1187,170 @@ public class FloatingActionButton extends ImageButton {
         return Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB;
     }
 
-    private static int darkenColor(int color) {
-        float[] hsv = new float[3];
-        Color.colorToHSV(color, hsv);
-        hsv[2] *= 0.9f;
-        return Color.HSVToColor(hsv);
+    /**
+     * Collects several property changes and applies them with a single background rebuild.
+     * Obtained through {@link #edit()}; nothing changes until {@link #commit()} is called.
+     */
+    public class Editor {
+        private int mColorNormal = FloatingActionButton.this.mColorNormal;
+        private int mColorPressed = FloatingActionButton.this.mColorPressed;
+        private int mColorRipple = FloatingActionButton.this.mColorRipple;
+        private int mColorDisabled = FloatingActionButton.this.mColorDisabled;
+        private boolean mShadow = FloatingActionButton.this.mShadow;
+        private int mType = FloatingActionButton.this.mType;
+        private int mSize = FloatingActionButton.this.mCustomSize;
+        private int mElevation = FloatingActionButton.this.mCustomElevation;
+
+        private Editor() {
+        }
+
+        public Editor colorNormal(int color) {
+            mColorNormal = color;
+            return this;
+        }
+
+        public Editor colorNormalResId(@ColorRes int colorResId) {
+            return colorNormal(getColor(colorResId));
+        }
+
+        public Editor colorPressed(int color) {
+            mColorPressed = color;
+            return this;
+        }
+
+        public Editor colorPressedResId(@ColorRes int colorResId) {
+            return colorPressed(getColor(colorResId));
+        }
+
+        public Editor colorRipple(int color) {
+            mColorRipple = color;
+            return this;
+        }
+
+        public Editor colorRippleResId(@ColorRes int colorResId) {
+            return colorRipple(getColor(colorResId));
+        }
+
+        public Editor colorDisabled(int color) {
+            mColorDisabled = color;
+            return this;
+        }
+
+        public Editor colorDisabledResId(@ColorRes int colorResId) {
+            return colorDisabled(getColor(colorResId));
+        }
+
+        public Editor palette(@NonNull FabPalette palette) {
+            mColorNormal = palette.getColorNormal();
+            mColorPressed = palette.getColorPressed();
+            mColorRipple = palette.getColorRipple();
+            mColorDisabled = palette.getColorDisabled();
+            return this;
+        }
+
+        public Editor shadow(boolean shadow) {
+            mShadow = shadow;
+            return this;
+        }
+
+        public Editor type(@TYPE int type) {
+            mType = type;
+            return this;
+        }
+
+        public Editor size(int size) {
+            mSize = size;
+            return this;
+        }
+
+        public Editor elevation(int elevation) {
+            mElevation = elevation < 0 ? -1 : elevation;
+            return this;
+        }
+
+        public void commit() {
+            FloatingActionButton fab = FloatingActionButton.this;
+            boolean backgroundChanged = mColorNormal != fab.mColorNormal
+                    || mColorPressed != fab.mColorPressed
+                    || mColorRipple != fab.mColorRipple
+                    || mColorDisabled != fab.mColorDisabled
+                    || mShadow != fab.mShadow
+                    || (mElevation != fab.mCustomElevation && hasLollipopApi());
+            fab.mColorNormal = mColorNormal;
+            fab.mColorPressed = mColorPressed;
+            fab.mColorRipple = mColorRipple;
+            fab.mColorDisabled = mColorDisabled;
+            fab.mShadow = mShadow;
+            fab.mType = mType;
+            fab.mCustomSize = mSize;
+            fab.mCustomElevation = mElevation;
+            if (updateGeometry() || backgroundChanged) {
+                updateBackground();
+            }
+        }
+    }
+
+    @TargetApi(Build.VERSION_CODES.LOLLIPOP)
+    private static class FabOutlineProvider extends ViewOutlineProvider {
+        @Override
+        public void getOutline(View view, Outline outline) {
+            int size = ((FloatingActionButton) view).mGeometry.getSize();
+            outline.setOval(0, 0, size, size);
+        }
+    }
+
+    private static void recordScrollEvent(WeakReference<FloatingActionButton> fabReference) {
+        FloatingActionButton fab = fabReference.get();
+        FabMetrics.record(fab != null ? fab.mMetrics : null, FabMetrics.SCROLL_EVENTS);
     }
 
-    private static int lightenColor(int color) {
-        float[] hsv = new float[3];
-        Color.colorToHSV(color, hsv);
-        hsv[2] *= 1.1f;
-        return Color.HSVToColor(hsv);
+    private interface ScrollAttachment {
+        boolean isAttachedTo(View target);
+
+        void register();
+
+        void unregister();
+
+        void setQuickReturn(boolean quickReturn);
     }
 
-    private class AbsListViewScrollDetectorImpl extends AbsListViewScrollDetector {
+    private static class QuickReturnListener implements ScrollDirectionEngine.OffsetListener {
+        private final WeakReference<FloatingActionButton> mFab;
+
+        QuickReturnListener(WeakReference<FloatingActionButton> fab) {
+            mFab = fab;
+        }
+
+        @Override
+        public void onScrollOffsetChanged(int delta) {
+            FloatingActionButton fab = mFab.get();
+            if (fab != null) {
+                fab.onQuickReturnScrolled(delta);
+            }
+        }
+
+        @Override
+        public void onScrollIdle() {
+            FloatingActionButton fab = mFab.get();
+            if (fab != null) {
+                fab.onQuickReturnIdle();
+            }
+        }
+    }
+
+    private static class AbsListViewScrollDetectorImpl extends AbsListViewScrollDetector
+            implements ScrollAttachment {
+        private final WeakReference<FloatingActionButton> mFab;
+        private final AbsListView mListView;
         private ScrollDirectionListener mScrollDirectionListener;
         private AbsListView.OnScrollListener mOnScrollListener;
+        private boolean mRegistered;
+
+        private AbsListViewScrollDetectorImpl(FloatingActionButton fab, AbsListView listView) {
+            mFab = new WeakReference<FloatingActionButton>(fab);
+            mListView = listView;
+            setListView(listView);
+        }
 
         private void setScrollDirectionListener(ScrollDirectionListener scrollDirectionListener) {
             mScrollDirectionListener = scrollDirectionListener;
@@ -446,9 +1360,46 @@ public class FloatingActionButton extends ImageButton {
             mOnScrollListener = onScrollListener;
         }
 
+        @Override
+        public boolean isAttachedTo(View target) {
+            return mListView == target;
+        }
+
+        @Override
+        public void setQuickReturn(boolean quickReturn) {
+            setOffsetListener(quickReturn ? new QuickReturnListener(mFab) : null);
+        }
+
+        @Override
+        public void register() {
+            if (!mRegistered) {
+                CompositeOnScrollListener.of(mListView).addOnScrollListener(this);
+                mRegistered = true;
+            }
+        }
+
+        @Override
+        public void unregister() {
+            if (mRegistered) {
+                CompositeOnScrollListener.of(mListView).removeOnScrollListener(this);
+                cancelPendingScroll();
+                mRegistered = false;
+            }
+        }
+
         @Override
         public void onScrollDown() {
-            show();
+            FloatingActionButton fab = mFab.get();
+            if (fab == null) {
+                unregister();
+                return;
+            }
+            if (!isRepeatedDirection()) {
+                FabMetrics.record(fab.mMetrics, FabMetrics.DIRECTION_CHANGES);
+            }
+            if (!fab.mQuickReturn) {
+                fab.show();
+            }
             if (mScrollDirectionListener != null) {
                 mScrollDirectionListener.onScrollDown();
             }
@@ -456,7 +1407,17 @@ public class FloatingActionButton extends ImageButton {
 
         @Override
         public void onScrollUp() {
-            hide();
+            FloatingActionButton fab = mFab.get();
+            if (fab == null) {
+                unregister();
+                return;
+            }
+            if (!isRepeatedDirection()) {
+                FabMetrics.record(fab.mMetrics, FabMetrics.DIRECTION_CHANGES);
+            }
+            if (!fab.mQuickReturn) {
+                fab.hide();
+            }
             if (mScrollDirectionListener != null) {
                 mScrollDirectionListener.onScrollUp();
             }
@@ -465,6 +1426,7 @@ public class FloatingActionButton extends ImageButton {
         @Override
         public void onScroll(AbsListView view, int firstVisibleItem, int visibleItemCount,
                              int totalItemCount) {
+            recordScrollEvent(mFab);
             if (mOnScrollListener != null) {
                 mOnScrollListener.onScroll(view, firstVisibleItem, visibleItemCount, totalItemCount);
             }
@@ -482,9 +1444,18 @@ public class FloatingActionButton extends ImageButton {
         }
     }
 
-    private class RecyclerViewScrollDetectorImpl extends RecyclerViewScrollDetector {
+    private static class RecyclerViewScrollDetectorImpl extends RecyclerViewScrollDetector
+            implements ScrollAttachment {
+        private final WeakReference<FloatingActionButton> mFab;
+        private final RecyclerView mRecyclerView;
         private ScrollDirectionListener mScrollDirectionListener;
         private RecyclerView.OnScrollListener mOnScrollListener;
+        private boolean mRegistered;
+
+        private RecyclerViewScrollDetectorImpl(FloatingActionButton fab, RecyclerView recyclerView) {
+            mFab = new WeakReference<FloatingActionButton>(fab);
+            mRecyclerView = recyclerView;
+        }
 
         private void setScrollDirectionListener(ScrollDirectionListener scrollDirectionListener) {
             mScrollDirectionListener = scrollDirectionListener;
@@ -494,9 +1465,46 @@ public class FloatingActionButton extends ImageButton {
             mOnScrollListener = onScrollListener;
         }
 
+        @Override
+        public boolean isAttachedTo(View target) {
+            return mRecyclerView == target;
+        }
+
+        @Override
+        public void setQuickReturn(boolean quickReturn) {
+            setOffsetListener(quickReturn ? new QuickReturnListener(mFab) : null);
+        }
+
+        @Override
+        public void register() {
+            if (!mRegistered) {
+                mRecyclerView.addOnScrollListener(this);
+                mRegistered = true;
+            }
+        }
+
+        @Override
+        public void unregister() {
+            if (mRegistered) {
+                mRecyclerView.removeOnScrollListener(this);
+                cancelPendingScroll();
+                mRegistered = false;
+            }
+        }
+
         @Override
         public void onScrollDown() {
-            show();
+            FloatingActionButton fab = mFab.get();
+            if (fab == null) {
+                unregister();
+                return;
+            }
+            if (!isRepeatedDirection()) {
+                FabMetrics.record(fab.mMetrics, FabMetrics.DIRECTION_CHANGES);
+            }
+            if (!fab.mQuickReturn) {
+                fab.show();
+            }
             if (mScrollDirectionListener != null) {
                 mScrollDirectionListener.onScrollDown();
             }
@@ -504,7 +1512,17 @@ public class FloatingActionButton extends ImageButton {
 
         @Override
         public void onScrollUp() {
-            hide();
+            FloatingActionButton fab = mFab.get();
+            if (fab == null) {
+                unregister();
+                return;
+            }
+            if (!isRepeatedDirection()) {
+                FabMetrics.record(fab.mMetrics, FabMetrics.DIRECTION_CHANGES);
+            }
+            if (!fab.mQuickReturn) {
+                fab.hide();
+            }
             if (mScrollDirectionListener != null) {
                 mScrollDirectionListener.onScrollUp();
             }
@@ -512,6 +1530,7 @@ public class FloatingActionButton extends ImageButton {
 
         @Override
         public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
+            recordScrollEvent(mFab);
             if (mOnScrollListener != null) {
                 mOnScrollListener.onScrolled(recyclerView, dx, dy);
             }
@@ -529,10 +1548,18 @@ public class FloatingActionButton extends ImageButton {
         }
     }
 
-    private class ScrollViewScrollDetectorImpl extends ScrollViewScrollDetector {
+    private static class ScrollViewScrollDetectorImpl extends ScrollViewScrollDetector
+            implements ScrollAttachment {
+        private final WeakReference<FloatingActionButton> mFab;
+        private final ObservableScrollView mScrollView;
         private ScrollDirectionListener mScrollDirectionListener;
-
         private ObservableScrollView.OnScrollChangedListener mOnScrollChangedListener;
+        private boolean mRegistered;
+
+        private ScrollViewScrollDetectorImpl(FloatingActionButton fab, ObservableScrollView scrollView) {
+            mFab = new WeakReference<FloatingActionButton>(fab);
+            mScrollView = scrollView;
+        }
 
         private void setScrollDirectionListener(ScrollDirectionListener scrollDirectionListener) {
             mScrollDirectionListener = scrollDirectionListener;
@@ -542,9 +1569,46 @@ public class FloatingActionButton extends ImageButton {
             mOnScrollChangedListener = onScrollChangedListener;
         }
 
+        @Override
+        public boolean isAttachedTo(View target) {
+            return mScrollView == target;
+        }
+
+        @Override
+        public void setQuickReturn(boolean quickReturn) {
+            setOffsetListener(quickReturn ? new QuickReturnListener(mFab) : null);
+        }
+
+        @Override
+        public void register() {
+            if (!mRegistered) {
+                mScrollView.addOnScrollChangedListener(this);
+                mRegistered = true;
+            }
+        }
+
+        @Override
+        public void unregister() {
+            if (mRegistered) {
+                mScrollView.removeOnScrollChangedListener(this);
+                cancelPendingScroll();
+                mRegistered = false;
+            }
+        }
+
         @Override
         public void onScrollDown() {
-            show();
+            FloatingActionButton fab = mFab.get();
+            if (fab == null) {
+                unregister();
+                return;
+            }
+            if (!isRepeatedDirection()) {
+                FabMetrics.record(fab.mMetrics, FabMetrics.DIRECTION_CHANGES);
+            }
+            if (!fab.mQuickReturn) {
+                fab.show();
+            }
             if (mScrollDirectionListener != null) {
                 mScrollDirectionListener.onScrollDown();
             }
@@ -552,7 +1616,17 @@ public class FloatingActionButton extends ImageButton {
 
         @Override
         public void onScrollUp() {
-            hide();
+            FloatingActionButton fab = mFab.get();
+            if (fab == null) {
+                unregister();
+                return;
+            }
+            if (!isRepeatedDirection()) {
+                FabMetrics.record(fab.mMetrics, FabMetrics.DIRECTION_CHANGES);
+            }
+            if (!fab.mQuickReturn) {
+                fab.hide();
+            }
             if (mScrollDirectionListener != null) {
                 mScrollDirectionListener.onScrollUp();
             }
@@ -560,6 +1634,7 @@ public class FloatingActionButton extends ImageButton {
 
         @Override
         public void onScrollChanged(ScrollView who, int l, int t, int oldl, int oldt) {
+            recordScrollEvent(mFab);
             if (mOnScrollChangedListener != null) {
                 mOnScrollChangedListener.onScrollChanged(who, l, t, oldl, oldt);
             }
@@ -567,4 +1642,94 @@ public class FloatingActionButton extends ImageButton {
             super.onScrollChanged(who, l, t, oldl, oldt);
         }
     }
+
+    private static class ViewScrollDetectorImpl extends ScrollViewScrollDetector
+            implements ScrollAttachment {
+        private final WeakReference<FloatingActionButton> mFab;
+        private final View mView;
+        private ScrollDirectionListener mScrollDirectionListener;
+        private boolean mRegistered;
+
+        private ViewScrollDetectorImpl(FloatingActionButton fab, View view) {
+            mFab = new WeakReference<FloatingActionButton>(fab);
+            mView = view;
+        }
+
+        private void setScrollDirectionListener(ScrollDirectionListener scrollDirectionListener) {
+            mScrollDirectionListener = scrollDirectionListener;
+        }
+
+        @Override
+        public boolean isAttachedTo(View target) {
+            return mView == target;
+        }
+
+        @Override
+        public void onScrollChanged() {
+            recordScrollEvent(mFab);
+            super.onScrollChanged();
+        }
+
+        @Override
+        public void setQuickReturn(boolean quickReturn) {
+            setOffsetListener(quickReturn ? new QuickReturnListener(mFab) : null);
+        }
+
+        @Override
+        public void register() {
+            if (!mRegistered) {
+                // The view may have scrolled while we weren't listening
+                setScrollView(mView);
+                addToViewTreeObserver(mView);
+                mRegistered = true;
+            } else {
+                updateViewTreeObserver(mView);
+            }
+        }
+
+        @Override
+        public void unregister() {
+            if (mRegistered) {
+                removeFromViewTreeObserver(mView);
+                cancelPendingScroll();
+                mRegistered = false;
+            }
+        }
+
+        @Override
+        public void onScrollDown() {
+            FloatingActionButton fab = mFab.get();
+            if (fab == null) {
+                unregister();
+                return;
+            }
+            if (!isRepeatedDirection()) {
+                FabMetrics.record(fab.mMetrics, FabMetrics.DIRECTION_CHANGES);
+            }
+            if (!fab.mQuickReturn) {
+                fab.show();
+            }
+            if (mScrollDirectionListener != null) {
+                mScrollDirectionListener.onScrollDown();
+            }
+        }
+
+        @Override
+        public void onScrollUp() {
+            FloatingActionButton fab = mFab.get();
+            if (fab == null) {
+                unregister();
+                return;
+            }
+            if (!isRepeatedDirection()) {
+                FabMetrics.record(fab.mMetrics, FabMetrics.DIRECTION_CHANGES);
+            }
+            if (!fab.mQuickReturn) {
+                fab.hide();
+            }
+            if (mScrollDirectionListener != null) {
+                mScrollDirectionListener.onScrollUp();
+            }
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,94 @@
+package com.melnykov.fab;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.view.animation.LinearInterpolator;
+
+/**
+ * Runs the single animator which moves all buttons of a {@link FabGroupController}. The platform
+ * animator is used on Honeycomb and newer, NineOldAndroids is only loaded on older devices.
+ */
+abstract class GroupAnimationBackend {
+
+    interface Listener {
+        /**
+         * @param fraction linear progress of the animation, exactly 1 on its last frame
+         */
+        void onAnimationUpdate(float fraction);
+    }
+
+    static GroupAnimationBackend create(Listener listener) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB) {
+            return new NativeGroupAnimationBackend(listener);
+        } else {
+            return new LegacyGroupAnimationBackend(listener);
+        }
+    }
+
+    abstract void start(long duration);
+
+    /**
+     * Stops the animation without another update.
+     */
+    abstract void cancel();
+
+    @TargetApi(Build.VERSION_CODES.HONEYCOMB)
+    private static class NativeGroupAnimationBackend extends GroupAnimationBackend
+            implements android.animation.ValueAnimator.AnimatorUpdateListener {
+        private final Listener mListener;
+        private final android.animation.ValueAnimator mAnimator;
+
+        NativeGroupAnimationBackend(Listener listener) {
+            mListener = listener;
+            mAnimator = android.animation.ValueAnimator.ofFloat(0.0f, 1.0f);
+            mAnimator.setInterpolator(new LinearInterpolator());
+            mAnimator.addUpdateListener(this);
+        }
+
+        @Override
+        void start(long duration) {
+            mAnimator.setDuration(duration);
+            mAnimator.start();
+        }
+
+        @Override
+        void cancel() {
+            mAnimator.cancel();
+        }
+
+        @Override
+        public void onAnimationUpdate(android.animation.ValueAnimator animation) {
+            // getAnimatedFraction() needs API 12, the value is the same with a linear interpolator
+            mListener.onAnimationUpdate((Float) animation.getAnimatedValue());
+        }
+    }
+
+    private static class LegacyGroupAnimationBackend extends GroupAnimationBackend
+            implements com.nineoldandroids.animation.ValueAnimator.AnimatorUpdateListener {
+        private final Listener mListener;
+        private final com.nineoldandroids.animation.ValueAnimator mAnimator;
+
+        LegacyGroupAnimationBackend(Listener listener) {
+            mListener = listener;
+            mAnimator = com.nineoldandroids.animation.ValueAnimator.ofFloat(0.0f, 1.0f);
+            mAnimator.setInterpolator(new LinearInterpolator());
+            mAnimator.addUpdateListener(this);
+        }
+
+        @Override
+        void start(long duration) {
+            mAnimator.setDuration(duration);
+            mAnimator.start();
+        }
+
+        @Override
+        void cancel() {
+            mAnimator.cancel();
+        }
+
+        @Override
+        public void onAnimationUpdate(com.nineoldandroids.animation.ValueAnimator animation) {
+            mListener.onAnimationUpdate(animation.getAnimatedFraction());
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.melnykov.fab;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Default {@link ScrollPolicy}. A direction is reported once the content has been scrolled that
+ * way for more than the hysteresis distance, or faster than the fling velocity. The reported
+ * direction flips not earlier than the minimal interval after the previous flip. While the
+ * scroll continues the same direction is reported again, so a button which was shown or hidden
+ * in between follows the scroll again.
+ */
+public class HysteresisScrollPolicy implements ScrollPolicy {
+    private final int mHysteresis;
+    private final int mMinToggleInterval;
+    private final int mFlingVelocity;
+
+    private int mDirection = DIRECTION_NONE;
+    private int mDistance;
+    private long mLastToggleNanos;
+    private long mLastEventNanos;
+
+    /**
+     * @param hysteresis        distance in pixels to scroll against the current direction
+     * @param minToggleInterval minimal time between two direction changes in milliseconds
+     * @param flingVelocity     velocity in pixels per second which flips the direction right away,
+     *                          or 0 to disable
+     */
+    public HysteresisScrollPolicy(int hysteresis, int minToggleInterval, int flingVelocity) {
+        mHysteresis = hysteresis;
+        mMinToggleInterval = minToggleInterval;
+        mFlingVelocity = flingVelocity;
+    }
+
+    @Override
+    public int onScrolled(int delta, long frameTimeNanos) {
+        long elapsedNanos = mLastEventNanos > 0 ? frameTimeNanos - mLastEventNanos : 0;
+        mLastEventNanos = frameTimeNanos;
+        if (delta == 0) {
+            return DIRECTION_NONE;
+        }
+
+        int direction = delta > 0 ? DIRECTION_UP : DIRECTION_DOWN;
+        if ((mDistance > 0) != (delta > 0)) {
+            mDistance = 0;
+        }
+        mDistance += delta;
+
+        boolean isFling = mFlingVelocity > 0 && elapsedNanos > 0
+                && Math.abs(delta) * TimeUnit.SECONDS.toNanos(1) / elapsedNanos >= mFlingVelocity;
+        boolean isSignificant = Math.abs(mDistance) > mHysteresis || isFling;
+        if (!isSignificant) {
+            return DIRECTION_NONE;
+        }
+        boolean isFlip = direction != mDirection;
+        boolean isIntervalPassed = mLastToggleNanos == 0
+                || frameTimeNanos - mLastToggleNanos >= TimeUnit.MILLISECONDS.toNanos(mMinToggleInterval);
+        if (isFlip && !isIntervalPassed) {
+            return DIRECTION_NONE;
+        }
+        if (isFlip) {
+            mDirection = direction;
+            mLastToggleNanos = frameTimeNanos;
+        }
+        mDistance = 0;
+        return direction;
+    }
+
+    @Override
+    public ScrollPolicy copy() {
+        return new HysteresisScrollPolicy(mHysteresis, mMinToggleInterval, mFlingVelocity);
+    }
+}
\ No newline at end of file
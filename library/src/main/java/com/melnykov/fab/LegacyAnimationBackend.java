@@ -0,0 +1,71 @@
+package com.melnykov.fab;
+
+import android.view.View;
+import android.view.animation.Interpolator;
+
+import com.nineoldandroids.animation.Animator;
+import com.nineoldandroids.animation.AnimatorListenerAdapter;
+import com.nineoldandroids.view.ViewHelper;
+import com.nineoldandroids.view.ViewPropertyAnimator;
+
+/**
+ * NineOldAndroids based backend for devices older than Honeycomb. Hardware layers don't exist
+ * there, so the layer flag is ignored.
+ */
+class LegacyAnimationBackend extends AnimationBackend {
+    private final View mView;
+    private final AnimatorListener mAnimatorListener = new AnimatorListener();
+
+    LegacyAnimationBackend(View view) {
+        mView = view;
+    }
+
+    @Override
+    void animateTranslationY(float translationY, long duration, Interpolator interpolator,
+                             boolean withLayer, Listener listener) {
+        mAnimatorListener.mListener = listener;
+        ViewPropertyAnimator.animate(mView)
+                .setInterpolator(interpolator)
+                .setDuration(duration)
+                .setListener(mAnimatorListener)
+                .translationY(translationY);
+    }
+
+    @Override
+    void setTranslationY(float translationY) {
+        ViewHelper.setTranslationY(mView, translationY);
+    }
+
+    @Override
+    float getTranslationY() {
+        return ViewHelper.getTranslationY(mView);
+    }
+
+    @Override
+    void setLayerEnabled(boolean enabled) {
+    }
+
+    @Override
+    void cancel() {
+        ViewPropertyAnimator.animate(mView).cancel();
+    }
+
+    private static class AnimatorListener extends AnimatorListenerAdapter {
+        private Listener mListener;
+        private boolean mCanceled;
+
+        @Override
+        public void onAnimationCancel(Animator animation) {
+            mCanceled = true;
+        }
+
+        @Override
+        public void onAnimationEnd(Animator animation) {
+            boolean canceled = mCanceled;
+            mCanceled = false;
+            if (mListener != null) {
+                mListener.onAnimationEnd(canceled);
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,93 @@
+package com.melnykov.fab;
+
+import android.animation.Animator;
+import android.animation.AnimatorListenerAdapter;
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.view.View;
+import android.view.ViewPropertyAnimator;
+import android.view.animation.Interpolator;
+
+@TargetApi(Build.VERSION_CODES.HONEYCOMB)
+class NativeAnimationBackend extends AnimationBackend {
+    private final View mView;
+    private final AnimatorListener mAnimatorListener = new AnimatorListener();
+    private boolean mLayerSet;
+    private int mPreviousLayerType;
+
+    NativeAnimationBackend(View view) {
+        mView = view;
+    }
+
+    @Override
+    void animateTranslationY(float translationY, long duration, Interpolator interpolator,
+                             boolean withLayer, Listener listener) {
+        ViewPropertyAnimator animator = mView.animate()
+                .setInterpolator(interpolator)
+                .setDuration(duration);
+        boolean hasWithLayer = Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN;
+        if (withLayer && hasWithLayer) {
+            animator.withLayer();
+        }
+        mAnimatorListener.mLayerEnabled = withLayer && !hasWithLayer;
+        mAnimatorListener.mListener = listener;
+        animator.setListener(mAnimatorListener);
+        animator.translationY(translationY);
+    }
+
+    @Override
+    void setTranslationY(float translationY) {
+        mView.setTranslationY(translationY);
+    }
+
+    @Override
+    float getTranslationY() {
+        return mView.getTranslationY();
+    }
+
+    @Override
+    void setLayerEnabled(boolean enabled) {
+        if (enabled && !mLayerSet) {
+            mPreviousLayerType = mView.getLayerType();
+            mView.setLayerType(View.LAYER_TYPE_HARDWARE, null);
+            mLayerSet = true;
+        } else if (!enabled && mLayerSet) {
+            mView.setLayerType(mPreviousLayerType, null);
+            mLayerSet = false;
+        }
+    }
+
+    @Override
+    void cancel() {
+        mView.animate().cancel();
+    }
+
+    private class AnimatorListener extends AnimatorListenerAdapter {
+        private Listener mListener;
+        private boolean mCanceled;
+        // Layer handling for API 11-15, where ViewPropertyAnimator.withLayer() is not available
+        private boolean mLayerEnabled;
+
+        @Override
+        public void onAnimationStart(Animator animation) {
+            if (mLayerEnabled) {
+                setLayerEnabled(true);
+            }
+        }
+
+        @Override
+        public void onAnimationCancel(Animator animation) {
+            mCanceled = true;
+        }
+
+        @Override
+        public void onAnimationEnd(Animator animation) {
+            setLayerEnabled(false);
+            boolean canceled = mCanceled;
+            mCanceled = false;
+            if (mListener != null) {
+                mListener.onAnimationEnd(canceled);
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -2,6 +2,7 @@ package com.melnykov.fab;
 
 
 import android.content.Context;
+import android.support.annotation.NonNull;
 import android.util.AttributeSet;
 import android.widget.ScrollView;
 
@@ -11,7 +12,11 @@ public class ObservableScrollView extends ScrollView {
         void onScrollChanged(ScrollView who, int l, int t, int oldl, int oldt);
     }
 
+    private static final OnScrollChangedListener[] EMPTY_LISTENERS = new OnScrollChangedListener[0];
+
     private OnScrollChangedListener mOnScrollChangedListener;
+    // Copy-on-write, so dispatching a scroll never allocates
+    private OnScrollChangedListener[] mOnScrollChangedListeners = EMPTY_LISTENERS;
 
     public ObservableScrollView(Context context) {
         super(context);
@@ -31,9 +36,38 @@ public class ObservableScrollView extends ScrollView {
         if (mOnScrollChangedListener != null) {
             mOnScrollChangedListener.onScrollChanged(this, l, t, oldl, oldt);
         }
+        OnScrollChangedListener[] listeners = mOnScrollChangedListeners;
+        for (OnScrollChangedListener listener : listeners) {
+            listener.onScrollChanged(this, l, t, oldl, oldt);
+        }
     }
 
     public void setOnScrollChangedListener(OnScrollChangedListener listener) {
         mOnScrollChangedListener = listener;
     }
+
+    public void addOnScrollChangedListener(@NonNull OnScrollChangedListener listener) {
+        OnScrollChangedListener[] listeners = mOnScrollChangedListeners;
+        for (OnScrollChangedListener l : listeners) {
+            if (l == listener) return;
+        }
+        OnScrollChangedListener[] newListeners = new OnScrollChangedListener[listeners.length + 1];
+        System.arraycopy(listeners, 0, newListeners, 0, listeners.length);
+        newListeners[listeners.length] = listener;
+        mOnScrollChangedListeners = newListeners;
+    }
+
+    public void removeOnScrollChangedListener(OnScrollChangedListener listener) {
+        OnScrollChangedListener[] listeners = mOnScrollChangedListeners;
+        for (int i = 0; i < listeners.length; i++) {
+            if (listeners[i] == listener) {
+                OnScrollChangedListener[] newListeners = listeners.length == 1 ? EMPTY_LISTENERS
+                        : new OnScrollChangedListener[listeners.length - 1];
+                System.arraycopy(listeners, 0, newListeners, 0, i);
+                System.arraycopy(listeners, i + 1, newListeners, i, listeners.length - i - 1);
+                mOnScrollChangedListeners = newListeners;
+                return;
+            }
+        }
+    }
 }
\ No newline at end of file
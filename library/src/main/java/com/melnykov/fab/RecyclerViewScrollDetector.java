@@ -1,27 +1,83 @@
 package com.melnykov.fab;
 
+import android.support.v7.widget.LinearLayoutManager;
 import android.support.v7.widget.RecyclerView;
+import android.support.v7.widget.StaggeredGridLayoutManager;
 
-abstract class RecyclerViewScrollDetector extends RecyclerView.OnScrollListener {
-    private int mScrollThreshold;
+/**
+ * Reports the scroll direction of a {@link RecyclerView} along the axis its layout manager
+ * scrolls, with the sign flipped for reversed layouts. Only scrolls started by a user drag,
+ * including the fling that follows, are counted. Programmatic jumps, smooth scrolls and
+ * relayouts after adapter updates are ignored.
+ */
+abstract class RecyclerViewScrollDetector extends RecyclerView.OnScrollListener implements ScrollDirectionListener {
+    private final ScrollDirectionEngine mEngine = new ScrollDirectionEngine(this);
+    private boolean mUserScrolling;
 
-    abstract void onScrollUp();
-
-    abstract void onScrollDown();
+    @Override
+    public void onScrollStateChanged(RecyclerView recyclerView, int newState) {
+        if (newState == RecyclerView.SCROLL_STATE_DRAGGING) {
+            mUserScrolling = true;
+        } else if (newState == RecyclerView.SCROLL_STATE_IDLE) {
+            mUserScrolling = false;
+            mEngine.onScrollIdle();
+        }
+    }
 
     @Override
     public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
-        boolean isSignificantDelta = Math.abs(dy) > mScrollThreshold;
-        if (isSignificantDelta) {
-            if (dy > 0) {
-                onScrollUp();
-            } else {
-                onScrollDown();
+        boolean traced = FabTrace.beginSection("Fab.RecyclerView.onScrolled");
+        try {
+            // The state also covers a detector registered in the middle of a drag
+            if (!mUserScrolling && recyclerView.getScrollState() != RecyclerView.SCROLL_STATE_DRAGGING) {
+                return;
+            }
+            RecyclerView.LayoutManager layoutManager = recyclerView.getLayoutManager();
+            int delta = dy;
+            if (layoutManager != null && !layoutManager.canScrollVertically()
+                    && layoutManager.canScrollHorizontally()) {
+                delta = dx;
             }
+            if (isReverseLayout(layoutManager)) {
+                delta = -delta;
+            }
+            mEngine.onScrolled(delta);
+        } finally {
+            FabTrace.endSection(traced);
         }
     }
 
-    public void setScrollThreshold(int scrollThreshold) {
-        mScrollThreshold = scrollThreshold;
+    public void setScrollPolicy(ScrollPolicy scrollPolicy) {
+        mEngine.setScrollPolicy(scrollPolicy);
+    }
+
+    void setOffsetListener(ScrollDirectionEngine.OffsetListener offsetListener) {
+        mEngine.setOffsetListener(offsetListener);
+    }
+
+    void setSynchronousDispatch(boolean synchronousDispatch) {
+        mEngine.setSynchronousDispatch(synchronousDispatch);
+    }
+
+    /**
+     * Returns whether the direction being reported repeats the last one, called from
+     * {@link #onScrollUp()} or {@link #onScrollDown()}.
+     */
+    boolean isRepeatedDirection() {
+        return mEngine.isRepeatedDirection();
+    }
+
+    void cancelPendingScroll() {
+        mEngine.cancel();
+        mUserScrolling = false;
+    }
+
+    private static boolean isReverseLayout(RecyclerView.LayoutManager layoutManager) {
+        if (layoutManager instanceof LinearLayoutManager) {
+            return ((LinearLayoutManager) layoutManager).getReverseLayout();
+        } else if (layoutManager instanceof StaggeredGridLayoutManager) {
+            return ((StaggeredGridLayoutManager) layoutManager).getReverseLayout();
+        }
+        return false;
     }
 }
\ No newline at end of file
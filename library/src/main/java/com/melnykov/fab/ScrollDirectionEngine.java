@@ -0,0 +1,171 @@
+package com.melnykov.fab;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.view.Choreographer;
+
+/**
+ * Direction detection shared by all scroll detectors. Scroll deltas are accumulated and at most
+ * one direction is reported per frame, no matter how many scroll callbacks arrive in between.
+ */
+final class ScrollDirectionEngine {
+
+    /**
+     * Receives the raw scroll distance once per frame, before the scroll policy is applied.
+     */
+    interface OffsetListener {
+        /**
+         * @param delta scrolled distance in pixels since the last call, positive when the content
+         *              moves up
+         */
+        void onScrollOffsetChanged(int delta);
+
+        void onScrollIdle();
+    }
+
+    private final ScrollDirectionListener mListener;
+    private OffsetListener mOffsetListener;
+    private FrameCallbackCompat mFrameCallback;
+
+    private ScrollPolicy mScrollPolicy;
+    private int mPendingDelta;
+    private boolean mFramePending;
+    private boolean mSynchronousDispatch;
+    private int mLastDirection = ScrollPolicy.DIRECTION_NONE;
+    private boolean mRepeatedDirection;
+
+    ScrollDirectionEngine(ScrollDirectionListener listener) {
+        mListener = listener;
+    }
+
+    void setScrollPolicy(ScrollPolicy scrollPolicy) {
+        mScrollPolicy = scrollPolicy;
+    }
+
+    void setOffsetListener(OffsetListener offsetListener) {
+        mOffsetListener = offsetListener;
+    }
+
+    boolean hasOffsetListener() {
+        return mOffsetListener != null;
+    }
+
+    /**
+     * Dispatches every delta right away instead of once per frame. Only for benchmarks, which
+     * block the main thread, so the frame callback would never run.
+     */
+    void setSynchronousDispatch(boolean synchronousDispatch) {
+        mSynchronousDispatch = synchronousDispatch;
+    }
+
+    /**
+     * Returns whether the direction being reported is the same as the last reported one. Only
+     * valid while the listener is called.
+     */
+    boolean isRepeatedDirection() {
+        return mRepeatedDirection;
+    }
+
+    /**
+     * @param delta scrolled distance in pixels, positive when the content moves up
+     */
+    void onScrolled(int delta) {
+        mPendingDelta += delta;
+        scheduleDispatch();
+    }
+
+    /**
+     * Called when the scrolling view stops. A delta still waiting for the next frame is
+     * dispatched first.
+     */
+    void onScrollIdle() {
+        if (mFramePending && mFrameCallback != null) {
+            mFrameCallback.remove();
+            dispatch(System.nanoTime());
+        }
+        if (mOffsetListener != null) {
+            mOffsetListener.onScrollIdle();
+        }
+    }
+
+    /**
+     * Drops the pending delta and the state of the scroll policy.
+     */
+    void cancel() {
+        if (mFramePending && mFrameCallback != null) {
+            mFrameCallback.remove();
+        }
+        reset();
+        mLastDirection = ScrollPolicy.DIRECTION_NONE;
+        if (mScrollPolicy != null) {
+            mScrollPolicy = mScrollPolicy.copy();
+        }
+    }
+
+    private void scheduleDispatch() {
+        if (mSynchronousDispatch || Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN) {
+            dispatch(System.nanoTime());
+        } else if (!mFramePending) {
+            if (mFrameCallback == null) {
+                mFrameCallback = new FrameCallbackCompat(this);
+            }
+            mFramePending = true;
+            mFrameCallback.post();
+        }
+    }
+
+    private void dispatch(long frameTimeNanos) {
+        boolean traced = FabTrace.beginSection("Fab.dispatchScroll");
+        try {
+            int delta = mPendingDelta;
+            reset();
+            if (mOffsetListener != null && delta != 0) {
+                mOffsetListener.onScrollOffsetChanged(delta);
+            }
+            if (mScrollPolicy == null) {
+                return;
+            }
+
+            int direction = mScrollPolicy.onScrolled(delta, frameTimeNanos);
+            if (direction != ScrollPolicy.DIRECTION_NONE) {
+                // The policy may report a direction again while the scroll continues
+                mRepeatedDirection = direction == mLastDirection;
+                mLastDirection = direction;
+            }
+            if (direction == ScrollPolicy.DIRECTION_UP) {
+                mListener.onScrollUp();
+            } else if (direction == ScrollPolicy.DIRECTION_DOWN) {
+                mListener.onScrollDown();
+            }
+        } finally {
+            FabTrace.endSection(traced);
+        }
+    }
+
+    private void reset() {
+        mPendingDelta = 0;
+        mFramePending = false;
+    }
+
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+    private static class FrameCallbackCompat implements Choreographer.FrameCallback {
+        private final ScrollDirectionEngine mEngine;
+
+        FrameCallbackCompat(ScrollDirectionEngine engine) {
+            mEngine = engine;
+        }
+
+        void post() {
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+
+        void remove() {
+            Choreographer.getInstance().removeFrameCallback(this);
+        }
+
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            mEngine.dispatch(frameTimeNanos);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.melnykov.fab;
+
+/**
+ * Decides when a stream of scroll deltas should be reported as a scroll direction. Reporting the
+ * same direction again is cheap, a button which is already in the matching state ignores it.
+ * Every attached scrolling view gets its own instance obtained through {@link #copy()}, which is
+ * replaced by a fresh copy when the view stops being followed.
+ */
+public interface ScrollPolicy {
+    int DIRECTION_NONE = 0;
+    int DIRECTION_UP = 1;
+    int DIRECTION_DOWN = -1;
+
+    /**
+     * @param delta          distance scrolled since the previous call in pixels, positive when the
+     *                       content moves up
+     * @param frameTimeNanos time of the frame the delta belongs to
+     * @return {@link #DIRECTION_UP} or {@link #DIRECTION_DOWN} to report the scroll direction,
+     * {@link #DIRECTION_NONE} otherwise
+     */
+    int onScrolled(int delta, long frameTimeNanos);
+
+    /**
+     * Returns a new policy with the same configuration and a clean state.
+     */
+    ScrollPolicy copy();
+}
\ No newline at end of file
@@ -1,29 +1,126 @@
 package com.melnykov.fab;
 
+import android.support.annotation.NonNull;
+import android.view.View;
+import android.view.ViewTreeObserver;
 import android.widget.ScrollView;
 
-abstract class ScrollViewScrollDetector implements ObservableScrollView.OnScrollChangedListener {
-    private int mLastScrollY;
-    private int mScrollThreshold;
+/**
+ * Follows the vertical scroll position of an {@link ObservableScrollView}, or of any view when it
+ * is registered as a {@link ViewTreeObserver.OnScrollChangedListener}. These views don't report
+ * a scroll state, so the scroll is considered idle once the position hasn't changed for
+ * {@link #IDLE_DELAY_MILLIS}.
+ */
+abstract class ScrollViewScrollDetector implements ObservableScrollView.OnScrollChangedListener,
+        ViewTreeObserver.OnScrollChangedListener, ScrollDirectionListener {
+    private static final long IDLE_DELAY_MILLIS = 100;
 
-    abstract void onScrollUp();
+    private final ScrollDirectionEngine mEngine = new ScrollDirectionEngine(this);
+    private View mScrollView;
+    private int mLastScrollY;
+    private View mIdleView;
+    private ViewTreeObserver mViewTreeObserver;
 
-    abstract void onScrollDown();
+    private final Runnable mIdleRunnable = new Runnable() {
+        @Override
+        public void run() {
+            mIdleView = null;
+            mEngine.onScrollIdle();
+        }
+    };
 
     @Override
     public void onScrollChanged(ScrollView who, int l, int t, int oldl, int oldt) {
-        boolean isSignificantDelta = Math.abs(t - mLastScrollY) > mScrollThreshold;
-        if (isSignificantDelta) {
-            if (t > mLastScrollY) {
-                onScrollUp();
-            } else {
-                onScrollDown();
-            }
+        onScrollYChanged(who, t);
+    }
+
+    @Override
+    public void onScrollChanged() {
+        // Called for a scroll anywhere in the view tree, the cached position filters out the others
+        if (mScrollView != null) {
+            onScrollYChanged(mScrollView, mScrollView.getScrollY());
+        }
+    }
+
+    public void setScrollPolicy(ScrollPolicy scrollPolicy) {
+        mEngine.setScrollPolicy(scrollPolicy);
+    }
+
+    void setOffsetListener(ScrollDirectionEngine.OffsetListener offsetListener) {
+        mEngine.setOffsetListener(offsetListener);
+    }
+
+    void setSynchronousDispatch(boolean synchronousDispatch) {
+        mEngine.setSynchronousDispatch(synchronousDispatch);
+    }
+
+    /**
+     * Returns whether the direction being reported repeats the last one, called from
+     * {@link #onScrollUp()} or {@link #onScrollDown()}.
+     */
+    boolean isRepeatedDirection() {
+        return mEngine.isRepeatedDirection();
+    }
+
+    void cancelPendingScroll() {
+        mEngine.cancel();
+        if (mIdleView != null) {
+            mIdleView.removeCallbacks(mIdleRunnable);
+            mIdleView = null;
+        }
+    }
+
+    /**
+     * Listens to the observer of the view and keeps that observer, a view which has been detached
+     * from the window hands out a new one.
+     */
+    void addToViewTreeObserver(@NonNull View view) {
+        mViewTreeObserver = view.getViewTreeObserver();
+        mViewTreeObserver.addOnScrollChangedListener(this);
+    }
+
+    /**
+     * Picks up the observer of the window once the view is attached. The observer of a view which
+     * wasn't attached yet is merged into the window's one and dies.
+     */
+    void updateViewTreeObserver(@NonNull View view) {
+        if (mViewTreeObserver != null && !mViewTreeObserver.isAlive()
+                && view.getWindowToken() != null) {
+            mViewTreeObserver = view.getViewTreeObserver();
         }
-        mLastScrollY = t;
     }
 
-    public void setScrollThreshold(int scrollThreshold) {
-        mScrollThreshold = scrollThreshold;
+    void removeFromViewTreeObserver(@NonNull View view) {
+        updateViewTreeObserver(view);
+        if (mViewTreeObserver != null && mViewTreeObserver.isAlive()) {
+            mViewTreeObserver.removeOnScrollChangedListener(this);
+        }
+        mViewTreeObserver = null;
+    }
+
+    /**
+     * Sets the view whose position is read by {@link #onScrollChanged()}.
+     */
+    void setScrollView(@NonNull View scrollView) {
+        mScrollView = scrollView;
+        mLastScrollY = scrollView.getScrollY();
+    }
+
+    private void onScrollYChanged(View view, int scrollY) {
+        boolean traced = FabTrace.beginSection("Fab.ScrollView.onScrollChanged");
+        try {
+            if (scrollY != mLastScrollY) {
+                mEngine.onScrolled(scrollY - mLastScrollY);
+                mLastScrollY = scrollY;
+                // Only needed by the offset listener, so the direction path doesn't post anything
+                if (mEngine.hasOffsetListener()) {
+                    view.removeCallbacks(mIdleRunnable);
+                    view.postDelayed(mIdleRunnable, IDLE_DELAY_MILLIS);
+                    mIdleView = view;
+                }
+            }
+        } finally {
+            FabTrace.endSection(traced);
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,134 @@
+package com.melnykov.fab;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.ColorFilter;
+import android.graphics.Paint;
+import android.graphics.PixelFormat;
+import android.graphics.RadialGradient;
+import android.graphics.Rect;
+import android.graphics.Shader;
+import android.graphics.drawable.Drawable;
+import android.support.v4.util.LruCache;
+
+/**
+ * Pre-Lollipop shadow of a circular button. The circle fills the bounds minus the shadow size on
+ * every side. The shadow is rendered once per (bounds, shadow size) into an alpha bitmap which is
+ * shared between all drawables of the same configuration. The bitmap cache is synchronized,
+ * drawables can be created and bound on any thread.
+ */
+class ShadowDrawable extends Drawable {
+    private static final int MAX_CACHE_BYTES = 1024 * 1024;
+    private static final int SHADOW_COLOR = 0x4c000000;
+    private static final int SHADOW_COLOR_FADING = 0x14000000;
+
+    private static final LruCache<Long, Bitmap> sBitmapCache =
+            new LruCache<Long, Bitmap>(MAX_CACHE_BYTES) {
+                @Override
+                protected int sizeOf(Long key, Bitmap bitmap) {
+                    return bitmap.getRowBytes() * bitmap.getHeight();
+                }
+            };
+
+    private final ShadowState mState;
+    private final Paint mPaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+    private Bitmap mBitmap;
+
+    ShadowDrawable(int shadowSize) {
+        this(new ShadowState(shadowSize));
+    }
+
+    private ShadowDrawable(ShadowState state) {
+        mState = state;
+        mPaint.setColor(Color.BLACK);
+    }
+
+    int getShadowSize() {
+        return mState.mShadowSize;
+    }
+
+    @Override
+    protected void onBoundsChange(Rect bounds) {
+        super.onBoundsChange(bounds);
+        mBitmap = bounds.isEmpty() ? null
+                : getShadowBitmap(bounds.width(), bounds.height(), mState.mShadowSize);
+    }
+
+    @Override
+    public void draw(Canvas canvas) {
+        if (mBitmap != null) {
+            Rect bounds = getBounds();
+            canvas.drawBitmap(mBitmap, bounds.left, bounds.top, mPaint);
+        }
+    }
+
+    @Override
+    public void setAlpha(int alpha) {
+        mPaint.setAlpha(alpha);
+        invalidateSelf();
+    }
+
+    @Override
+    public void setColorFilter(ColorFilter cf) {
+        mPaint.setColorFilter(cf);
+        invalidateSelf();
+    }
+
+    @Override
+    public int getOpacity() {
+        return PixelFormat.TRANSLUCENT;
+    }
+
+    @Override
+    public ConstantState getConstantState() {
+        return mState;
+    }
+
+    private static Bitmap getShadowBitmap(int width, int height, int shadowSize) {
+        long key = ((long) width << 40) | ((long) height << 20) | shadowSize;
+        Bitmap bitmap = sBitmapCache.get(key);
+        if (bitmap == null) {
+            bitmap = createShadowBitmap(width, height, shadowSize);
+            sBitmapCache.put(key, bitmap);
+        }
+        return bitmap;
+    }
+
+    private static Bitmap createShadowBitmap(int width, int height, int shadowSize) {
+        Bitmap bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ALPHA_8);
+        float radius = Math.min(width, height) / 2f;
+        float circleRadius = Math.max(radius - shadowSize, 0f);
+        if (radius > 0) {
+            // The light comes from above, so the shadow is shifted down a bit
+            float centerX = width / 2f;
+            float centerY = height / 2f + shadowSize / 4f;
+            float circleEdge = circleRadius / radius;
+            Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+            paint.setShader(new RadialGradient(centerX, centerY, radius,
+                    new int[]{SHADOW_COLOR, SHADOW_COLOR, SHADOW_COLOR_FADING, Color.TRANSPARENT},
+                    new float[]{0f, circleEdge, circleEdge + (1f - circleEdge) / 2f, 1f},
+                    Shader.TileMode.CLAMP));
+            new Canvas(bitmap).drawCircle(centerX, centerY, radius, paint);
+        }
+        return bitmap;
+    }
+
+    private static class ShadowState extends ConstantState {
+        private final int mShadowSize;
+
+        ShadowState(int shadowSize) {
+            mShadowSize = shadowSize;
+        }
+
+        @Override
+        public Drawable newDrawable() {
+            return new ShadowDrawable(this);
+        }
+
+        @Override
+        public int getChangingConfigurations() {
+            return 0;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,91 @@
+package com.melnykov.fab;
+
+import android.content.Context;
+import android.os.Build;
+import android.widget.AbsListView;
+import android.widget.ListView;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.Shadows;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = Build.VERSION_CODES.JELLY_BEAN)
+public class CompositeOnScrollListenerTest {
+    private final List<String> mEvents = new ArrayList<String>();
+    private Context mContext;
+    private ListView mListView;
+
+    @Before
+    public void setUp() {
+        mContext = RuntimeEnvironment.application;
+        mListView = new ListView(mContext);
+    }
+
+    @Test
+    public void existingListenerIsFirstSubscriber() {
+        RecordingListener appListener = new RecordingListener("app");
+        mListView.setOnScrollListener(appListener);
+
+        CompositeOnScrollListener composite = CompositeOnScrollListener.of(mListView, appListener);
+        composite.addOnScrollListener(new RecordingListener("other"));
+        mEvents.clear();
+        composite.onScroll(mListView, 0, 0, 0);
+
+        assertSame(composite, getInstalledListener());
+        assertEquals(Arrays.asList("app", "other"), mEvents);
+    }
+
+    @Test
+    public void attachToListViewReinstallsReplacedComposite() {
+        new FloatingActionButton(mContext).attachToListView(mListView);
+        mListView.setOnScrollListener(new RecordingListener("app"));
+
+        new FloatingActionButton(mContext).attachToListView(mListView);
+
+        assertSame(CompositeOnScrollListener.of(mListView), getInstalledListener());
+    }
+
+    @Test
+    public void groupAttachToListViewReinstallsReplacedComposite() {
+        new FabGroupController(mContext).attachToListView(mListView);
+        mListView.setOnScrollListener(new RecordingListener("app"));
+
+        new FabGroupController(mContext).attachToListView(mListView);
+
+        assertSame(CompositeOnScrollListener.of(mListView), getInstalledListener());
+    }
+
+    private AbsListView.OnScrollListener getInstalledListener() {
+        return Shadows.shadowOf(mListView).getOnScrollListener();
+    }
+
+    private class RecordingListener implements AbsListView.OnScrollListener {
+        private final String mName;
+
+        RecordingListener(String name) {
+            mName = name;
+        }
+
+        @Override
+        public void onScrollStateChanged(AbsListView view, int scrollState) {
+        }
+
+        @Override
+        public void onScroll(AbsListView view, int firstVisibleItem, int visibleItemCount,
+                             int totalItemCount) {
+            mEvents.add(mName);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.melnykov.fab;
+
+import android.graphics.Color;
+import android.os.Build;
+import android.view.View;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = Build.VERSION_CODES.LOLLIPOP)
+public class FabTraceTest {
+    // Not used by other tests, so the background isn't cached yet
+    private static final int COLOR_UNCACHED = 0xff010203;
+
+    private RecordingTracer mTracer;
+    private FloatingActionButton mFab;
+
+    @Before
+    public void setUp() {
+        mTracer = new RecordingTracer();
+        FabTrace.setTracer(mTracer);
+        mFab = new FloatingActionButton(RuntimeEnvironment.application);
+        int spec = View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED);
+        mFab.measure(spec, spec);
+        mFab.layout(0, 0, mFab.getMeasuredWidth(), mFab.getMeasuredHeight());
+    }
+
+    @After
+    public void tearDown() {
+        FabTrace.setEnabled(false);
+        FabTrace.setTracer(null);
+    }
+
+    @Test
+    public void disabledRecordsNothing() {
+        mFab.setColorNormal(Color.RED);
+        mFab.hide(false);
+
+        assertEquals(0, mTracer.mEvents.size());
+    }
+
+    @Test
+    public void nestedSectionsAreBalanced() {
+        FabTrace.setEnabled(true);
+        mFab.setColorNormal(COLOR_UNCACHED);
+
+        // One drawable each for the pressed, disabled and normal state
+        assertEquals(Arrays.asList("begin Fab.updateBackground",
+                "begin Fab.createDrawable", "end",
+                "begin Fab.createDrawable", "end",
+                "begin Fab.createDrawable", "end",
+                "end"), mTracer.mEvents);
+        assertEquals(0, mTracer.mDepth);
+    }
+
+    @Test
+    public void disablingInsideSectionStillEndsIt() {
+        FabTrace.setEnabled(true);
+        mTracer.mDisableOn = "Fab.updateBackground";
+        mFab.setColorNormal(Color.RED);
+
+        assertEquals(Arrays.asList("begin Fab.updateBackground", "end"), mTracer.mEvents);
+        assertEquals(0, mTracer.mDepth);
+    }
+
+    @Test
+    public void enablingInsideSectionDoesNotEndIt() {
+        mFab.setOnVisibilityStateChangedListener(
+                new FloatingActionButton.OnVisibilityStateChangedListener() {
+                    @Override
+                    public void onVisibilityStateChanged(FloatingActionButton fab, int state) {
+                        FabTrace.setEnabled(true);
+                    }
+                });
+        // The listener runs inside the untraced toggle section
+        mFab.hide(false);
+        mFab.setColorNormal(Color.RED);
+
+        assertEquals(0, mTracer.mDepth);
+        assertEquals("begin Fab.updateBackground", mTracer.mEvents.get(0));
+    }
+
+    static class RecordingTracer implements FabTrace.Tracer {
+        final List<String> mEvents = new ArrayList<String>();
+        String mDisableOn;
+        int mDepth;
+
+        @Override
+        public void beginSection(String sectionName) {
+            mEvents.add("begin " + sectionName);
+            mDepth++;
+            if (sectionName.equals(mDisableOn)) {
+                FabTrace.setEnabled(false);
+            }
+        }
+
+        @Override
+        public void endSection() {
+            mEvents.add("end");
+            mDepth--;
+            if (mDepth < 0) {
+                throw new IllegalStateException("endSection() without beginSection()");
+            }
+        }
+    }
+}
@@ -0,0 +1,649 @@
+package com.melnykov.fab;
+
+import android.app.Activity;
+import android.app.Fragment;
+import android.content.Context;
+import android.graphics.Color;
+import android.os.Build;
+import android.os.Bundle;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewOutlineProvider;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+import org.robolectric.util.ReflectionHelpers;
+
+import java.lang.ref.WeakReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = Build.VERSION_CODES.JELLY_BEAN)
+public class FloatingActionButtonTest {
+    private static final int MARGIN = 16;
+
+    private Context mContext;
+    private Activity mActivity;
+    private TestParent mParent;
+    private CountingFloatingActionButton mFab;
+
+    @Before
+    public void setUp() {
+        mContext = RuntimeEnvironment.application;
+        mParent = new TestParent(mContext);
+        mFab = new CountingFloatingActionButton(mContext);
+    }
+
+    @Test
+    public void layoutPassMeasuresOnceWithoutRequestingAnother() {
+        mParent.addView(mFab, createLayoutParams());
+        layoutParent();
+
+        assertEquals(1, mFab.mMeasureCount);
+        assertEquals(1, mFab.mLayoutCount);
+        assertEquals(0, mFab.mRequestLayoutCount);
+    }
+
+    @Test
+    public void colorChangeDoesNotRequestLayout() {
+        mParent.addView(mFab, createLayoutParams());
+        layoutParent();
+        mFab.resetCounts();
+
+        mFab.setColorNormal(Color.RED);
+        mFab.setColorPressed(Color.GREEN);
+
+        assertEquals(0, mFab.mRequestLayoutCount);
+    }
+
+    @Test
+    public void sizeChangeRequestsSingleLayout() {
+        mParent.addView(mFab, createLayoutParams());
+        layoutParent();
+        mFab.resetCounts();
+
+        mFab.edit().size(mFab.getSize() * 2).type(FloatingActionButton.TYPE_MINI).commit();
+        assertEquals(1, mFab.mRequestLayoutCount);
+
+        layoutParent();
+        assertEquals(1, mFab.mMeasureCount);
+        assertEquals(mFab.getSize() + 2 * getShadowSize(), mFab.getMeasuredHeight());
+    }
+
+    @Test
+    public void compensatesShadowInSetLayoutParams() {
+        mParent.addView(mFab, createLayoutParams());
+        layoutParent();
+
+        assertMargins(MARGIN - getShadowSize());
+        assertEquals(1, mFab.mMeasureCount);
+        assertEquals(0, mFab.mRequestLayoutCount);
+    }
+
+    @Test
+    public void compensatesShadowWhenAddedInLayout() {
+        attachParentToWindow();
+        mParent.addInLayout(mFab, createLayoutParams());
+        layoutParent();
+
+        assertMargins(MARGIN - getShadowSize());
+        assertEquals(1, mFab.mMeasureCount);
+        assertEquals(0, mFab.mRequestLayoutCount);
+    }
+
+    @Test
+    public void compensatesShadowOncePerLayoutParams() {
+        mParent.addView(mFab, createLayoutParams());
+        layoutParent();
+        mFab.requestLayout();
+        layoutParent();
+        mFab.setLayoutParams(mFab.getLayoutParams());
+
+        assertMargins(MARGIN - getShadowSize());
+    }
+
+    @Test
+    @Config(sdk = Build.VERSION_CODES.LOLLIPOP)
+    public void negativeElevationRestoresDefault() {
+        int elevationDefault = mContext.getResources().getDimensionPixelSize(R.dimen.fab_elevation_lollipop);
+        ElevationFloatingActionButton fab = new ElevationFloatingActionButton(mContext);
+        assertEquals(elevationDefault, fab.getElevation(), 0.0f);
+
+        fab.setElevationCompat(elevationDefault * 2);
+        assertEquals(elevationDefault * 2, fab.getElevation(), 0.0f);
+
+        fab.setElevationCompat(-1);
+        assertEquals(elevationDefault, fab.getElevation(), 0.0f);
+        assertEquals(elevationDefault, fab.getElevationCompat());
+    }
+
+    @Test
+    public void constructsOffMainThread() throws InterruptedException {
+        constructOffMainThread();
+    }
+
+    @Test
+    @Config(sdk = Build.VERSION_CODES.LOLLIPOP)
+    public void constructsOffMainThreadOnLollipop() throws InterruptedException {
+        FloatingActionButton fab = constructOffMainThread();
+
+        // Robolectric hands the main Looper to every thread, so check that the main thread only
+        // work is still left for the attach and the first press
+        assertSame(ViewOutlineProvider.BACKGROUND, fab.getOutlineProvider());
+        assertNull(fab.getStateListAnimator());
+    }
+
+    @Test
+    public void showRightAfterHideKeepsButtonShown() {
+        attachParentToWindow();
+        mParent.addView(mFab, createLayoutParams());
+        layoutParent();
+
+        // The hide animation is only queued, so the button hasn't moved when it is shown again
+        ShadowLooper.pauseMainLooper();
+        mFab.hide();
+        mFab.show();
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+
+        assertEquals(0.0f, mFab.getTranslationY(), 0.0f);
+        assertEquals(FloatingActionButton.STATE_SHOWN, mFab.getVisibilityState());
+        assertEquals(View.VISIBLE, mFab.getVisibility());
+
+        mFab.hide();
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+        assertEquals(FloatingActionButton.STATE_HIDDEN, mFab.getVisibilityState());
+    }
+
+    @Test
+    public void staggeredShowRightAfterHideKeepsButtonsShown() {
+        attachParentToWindow();
+        FloatingActionButton second = new FloatingActionButton(mContext);
+        mParent.addView(mFab, createLayoutParams());
+        mParent.addView(second, createLayoutParams());
+        layoutParent();
+        FabGroupController controller = new FabGroupController(mContext);
+        controller.addButton(mFab);
+        controller.addButton(second);
+        controller.setStaggerDelay(50);
+
+        // The second button is still waiting for its delay when the direction reverses
+        ShadowLooper.pauseMainLooper();
+        controller.hide();
+        controller.show();
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+
+        assertEquals(0.0f, mFab.getTranslationY(), 0.0f);
+        assertEquals(FloatingActionButton.STATE_SHOWN, mFab.getVisibilityState());
+        assertEquals(0.0f, second.getTranslationY(), 0.0f);
+        assertEquals(FloatingActionButton.STATE_SHOWN, second.getVisibilityState());
+        assertEquals(View.VISIBLE, second.getVisibility());
+    }
+
+    @Test
+    public void groupMovesStaggeredButtonsFromOneAnimation() {
+        attachParentToWindow();
+        FloatingActionButton second = new FloatingActionButton(mContext);
+        mParent.addView(mFab, createLayoutParams());
+        mParent.addView(second, createLayoutParams());
+        layoutParent();
+        FabMetrics metrics = new FabMetrics();
+        mFab.setMetrics(metrics);
+        second.setMetrics(metrics);
+        FabGroupController controller = new FabGroupController(mContext);
+        controller.addButton(mFab);
+        controller.addButton(second);
+        // 350 ms in total, the second button starts moving after 150 ms
+        controller.setStaggerDelay(150);
+
+        ShadowLooper.pauseMainLooper();
+        controller.hide();
+        updateGroupAnimation(controller, 100.0f / 350.0f);
+
+        // The second button is still waiting for its part of the animation
+        assertTrue(mFab.getTranslationY() > 0.0f);
+        assertEquals(0.0f, second.getTranslationY(), 0.0f);
+        assertEquals(FloatingActionButton.STATE_HIDING, second.getVisibilityState());
+
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+        int hiddenTranslationY = mFab.getHeight() + MARGIN - getShadowSize();
+        assertEquals(hiddenTranslationY, mFab.getTranslationY(), 0.0f);
+        assertEquals(FloatingActionButton.STATE_HIDDEN, mFab.getVisibilityState());
+        assertEquals(hiddenTranslationY, second.getTranslationY(), 0.0f);
+        assertEquals(FloatingActionButton.STATE_HIDDEN, second.getVisibilityState());
+        assertEquals(2, metrics.snapshot().getAnimationsStarted());
+    }
+
+    @Test
+    public void groupReversalMovesButtonsBack() {
+        attachParentToWindow();
+        FloatingActionButton second = new FloatingActionButton(mContext);
+        mParent.addView(mFab, createLayoutParams());
+        mParent.addView(second, createLayoutParams());
+        layoutParent();
+        FabGroupController controller = new FabGroupController(mContext);
+        controller.addButton(mFab);
+        controller.addButton(second);
+        controller.setStaggerDelay(50);
+
+        ShadowLooper.pauseMainLooper();
+        controller.hide();
+        updateGroupAnimation(controller, 0.5f);
+        controller.show();
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+
+        assertEquals(0.0f, mFab.getTranslationY(), 0.0f);
+        assertEquals(FloatingActionButton.STATE_SHOWN, mFab.getVisibilityState());
+        assertEquals(0.0f, second.getTranslationY(), 0.0f);
+        assertEquals(FloatingActionButton.STATE_SHOWN, second.getVisibilityState());
+    }
+
+    @Test
+    public void buttonToggledOnItsOwnLeavesGroupAnimation() {
+        attachParentToWindow();
+        FloatingActionButton second = new FloatingActionButton(mContext);
+        mParent.addView(mFab, createLayoutParams());
+        mParent.addView(second, createLayoutParams());
+        layoutParent();
+        FabGroupController controller = new FabGroupController(mContext);
+        controller.addButton(mFab);
+        controller.addButton(second);
+
+        ShadowLooper.pauseMainLooper();
+        controller.hide();
+        updateGroupAnimation(controller, 0.5f);
+        mFab.show();
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+
+        assertEquals(0.0f, mFab.getTranslationY(), 0.0f);
+        assertEquals(FloatingActionButton.STATE_SHOWN, mFab.getVisibilityState());
+        assertEquals(FloatingActionButton.STATE_HIDDEN, second.getVisibilityState());
+    }
+
+    @Test
+    public void groupHoldsButtonsWeakly() {
+        FabGroupController controller = new FabGroupController(mContext);
+        FloatingActionButton fab = new FloatingActionButton(mContext);
+        controller.addButton(fab);
+        WeakReference<FloatingActionButton> reference =
+                new WeakReference<FloatingActionButton>(fab);
+        fab = null;
+
+        for (int i = 0; i < 10 && reference.get() != null; i++) {
+            System.gc();
+            System.runFinalization();
+        }
+
+        assertNull(reference.get());
+        // Cleared buttons are skipped
+        controller.hide();
+    }
+
+    @Test
+    public void toggleBeforeAttachRunsOnce() {
+        FabMetrics metrics = new FabMetrics();
+        mFab.setMetrics(metrics);
+        mParent.addView(mFab, createLayoutParams());
+
+        // Not laid out yet, so hiding waits for the first frame
+        mFab.hide();
+        attachParentToWindow();
+        layoutParent();
+        mParent.getViewTreeObserver().dispatchOnPreDraw();
+
+        FabMetrics.Snapshot snapshot = metrics.snapshot();
+        assertEquals(1, snapshot.getPreDrawDeferrals());
+        assertEquals(1, snapshot.getAnimationsStarted());
+    }
+
+    @Test
+    public void toggleWhileDetachedRunsOnceAfterReattach() {
+        FabMetrics metrics = new FabMetrics();
+        mFab.setMetrics(metrics);
+        mParent.addView(mFab, createLayoutParams());
+        attachParentToWindow();
+
+        mFab.hide();
+        detachParentFromWindow();
+        attachParentToWindow();
+        layoutParent();
+        mParent.getViewTreeObserver().dispatchOnPreDraw();
+        mParent.getViewTreeObserver().dispatchOnPreDraw();
+
+        assertEquals(1, metrics.snapshot().getAnimationsStarted());
+    }
+
+    @Test
+    public void viewDetachedFirstDoesNotKeepScrollListener() {
+        View scrollView = new View(mContext);
+        mParent.addView(scrollView);
+        mParent.addView(mFab, createLayoutParams());
+        attachParentToWindow();
+        FabMetrics metrics = new FabMetrics();
+        mFab.setMetrics(metrics);
+        mFab.attachToView(scrollView);
+
+        // The scrolling view comes first, so it is already detached when the button unregisters
+        detachParentFromWindow();
+        dispatchScrollChanged();
+
+        assertEquals(0, metrics.snapshot().getScrollEvents());
+    }
+
+    @Test
+    public void viewAttachedAfterRegisterDoesNotKeepScrollListener() {
+        View scrollView = new View(mContext);
+        mParent.addView(scrollView);
+        mParent.addView(mFab, createLayoutParams());
+        FabMetrics metrics = new FabMetrics();
+        mFab.setMetrics(metrics);
+        // Registered on the floating observer, which is merged into the window's one
+        mFab.attachToView(scrollView);
+        attachParentToWindow();
+        dispatchScrollChanged();
+        assertEquals(1, metrics.snapshot().getScrollEvents());
+
+        detachParentFromWindow();
+        dispatchScrollChanged();
+
+        assertEquals(1, metrics.snapshot().getScrollEvents());
+    }
+
+    @Test
+    public void repeatedToggleIsNotCountedAsNoOp() {
+        FabMetrics metrics = new FabMetrics();
+        mFab.setMetrics(metrics);
+        mParent.addView(mFab, createLayoutParams());
+        layoutParent();
+
+        mFab.hide(false);
+        mFab.hide(false);
+        mFab.show(false);
+        mFab.show(false);
+
+        assertEquals(0, metrics.snapshot().getToggleNoOps());
+    }
+
+    @Test
+    public void canceledAnimationRecordsElapsedTime() {
+        attachParentToWindow();
+        FabMetrics metrics = new FabMetrics();
+        mFab.setMetrics(metrics);
+        mParent.addView(mFab, createLayoutParams());
+        layoutParent();
+
+        ShadowLooper.pauseMainLooper();
+        mFab.hide();
+        mFab.show();
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+
+        assertEquals(1, metrics.snapshot().getAnimationsStarted());
+        assertEquals(0, metrics.snapshot().getAnimationMillis());
+    }
+
+    @Test
+    public void continuedScrollCountsOneDirectionChange() {
+        View scrollView = new View(mContext);
+        mParent.addView(scrollView);
+        mParent.addView(mFab, createLayoutParams());
+        attachParentToWindow();
+        FabMetrics metrics = new FabMetrics();
+        mFab.setMetrics(metrics);
+        CountingScrollDirectionListener listener = new CountingScrollDirectionListener();
+        mFab.attachToView(scrollView, listener);
+
+        for (int i = 1; i <= 10; i++) {
+            scrollView.scrollTo(0, i * 500);
+            dispatchScrollChanged();
+        }
+        for (int i = 9; i >= 0; i--) {
+            scrollView.scrollTo(0, i * 500);
+            dispatchScrollChanged();
+        }
+
+        // The policy keeps reporting the direction while the scroll continues
+        assertTrue(listener.mCount > 2);
+        assertEquals(2, metrics.snapshot().getDirectionChanges());
+    }
+
+    @Test
+    public void groupDetachFromDetachedViewRemovesScrollListener() {
+        View scrollView = new View(mContext);
+        mParent.addView(scrollView);
+        attachParentToWindow();
+        FabGroupController controller = new FabGroupController(mContext);
+        CountingScrollDirectionListener listener = new CountingScrollDirectionListener();
+        controller.setScrollDirectionListener(listener);
+        controller.attachToView(scrollView);
+
+        mParent.removeView(scrollView);
+        controller.detach(scrollView);
+        scrollView.scrollTo(0, 500);
+        dispatchScrollChanged();
+
+        assertEquals(0, listener.mCount);
+    }
+
+    @Test
+    public void fragmentRecreationReleasesButton() {
+        attachParentToWindow();
+        ScrollingFragment fragment = new ScrollingFragment();
+        showFragment(fragment);
+        WeakReference<FloatingActionButton> fab =
+                new WeakReference<FloatingActionButton>(fragment.mFab);
+        fragment = null;
+
+        showFragment(new ScrollingFragment());
+        for (int i = 0; i < 10 && fab.get() != null; i++) {
+            System.gc();
+            System.runFinalization();
+        }
+
+        assertNull(fab.get());
+    }
+
+    private void showFragment(Fragment fragment) {
+        mActivity.getFragmentManager().beginTransaction()
+                .replace(android.R.id.content, fragment)
+                .commit();
+        mActivity.getFragmentManager().executePendingTransactions();
+    }
+
+    private void dispatchScrollChanged() {
+        ReflectionHelpers.callInstanceMethod(
+                mActivity.getWindow().getDecorView().getViewTreeObserver(), "dispatchOnScrollChanged");
+    }
+
+    /**
+     * Builds a button the way AsyncLayoutInflater does, on a thread without a Looper.
+     */
+    private FloatingActionButton constructOffMainThread() throws InterruptedException {
+        final FloatingActionButton[] fab = new FloatingActionButton[1];
+        final Throwable[] failure = new Throwable[1];
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    fab[0] = new FloatingActionButton(mContext);
+                    fab[0].setColorNormal(Color.RED);
+                    fab[0].setType(FloatingActionButton.TYPE_MINI);
+                    fab[0].setShadow(false);
+                    fab[0].setElevationCompat(MARGIN);
+                } catch (Throwable t) {
+                    failure[0] = t;
+                }
+            }
+        });
+        thread.start();
+        thread.join();
+        if (failure[0] != null) {
+            throw new AssertionError(failure[0]);
+        }
+        return fab[0];
+    }
+
+    private void attachParentToWindow() {
+        if (mActivity == null) {
+            mActivity = Robolectric.setupActivity(Activity.class);
+        }
+        mActivity.setContentView(mParent);
+    }
+
+    /**
+     * Robolectric runs animations to their end on the first frame, so frames in between are
+     * delivered directly.
+     */
+    private static void updateGroupAnimation(FabGroupController controller, float fraction) {
+        ReflectionHelpers.callInstanceMethod(controller, "updateAnimation",
+                ReflectionHelpers.ClassParameter.from(float.class, fraction));
+    }
+
+    private void detachParentFromWindow() {
+        mActivity.setContentView(new View(mActivity));
+    }
+
+    private void layoutParent() {
+        mFab.resetCounts();
+        int spec = View.MeasureSpec.makeMeasureSpec(500, View.MeasureSpec.EXACTLY);
+        mParent.measure(spec, spec);
+        mParent.layout(0, 0, 500, 500);
+    }
+
+    private int getShadowSize() {
+        return mContext.getResources().getDimensionPixelSize(R.dimen.fab_shadow_size);
+    }
+
+    private void assertMargins(int margin) {
+        ViewGroup.MarginLayoutParams params = (ViewGroup.MarginLayoutParams) mFab.getLayoutParams();
+        assertEquals(margin, params.leftMargin);
+        assertEquals(margin, params.topMargin);
+        assertEquals(margin, params.rightMargin);
+        assertEquals(margin, params.bottomMargin);
+    }
+
+    private static FrameLayout.LayoutParams createLayoutParams() {
+        FrameLayout.LayoutParams params = new FrameLayout.LayoutParams(
+                ViewGroup.LayoutParams.WRAP_CONTENT, ViewGroup.LayoutParams.WRAP_CONTENT);
+        params.setMargins(MARGIN, MARGIN, MARGIN, MARGIN);
+        return params;
+    }
+
+    static class TestParent extends FrameLayout {
+        TestParent(Context context) {
+            super(context);
+        }
+
+        /**
+         * Adds the child the way ListView does during a layout pass, without
+         * {@link View#setLayoutParams(ViewGroup.LayoutParams)}.
+         */
+        void addInLayout(View child, ViewGroup.LayoutParams params) {
+            addViewInLayout(child, -1, params, true);
+        }
+    }
+
+    /**
+     * Attaches its button to a scrolling view which is detached before the button.
+     */
+    public static class ScrollingFragment extends Fragment {
+        FloatingActionButton mFab;
+
+        @Override
+        public View onCreateView(LayoutInflater inflater, ViewGroup container,
+                                 Bundle savedInstanceState) {
+            FrameLayout root = new FrameLayout(inflater.getContext());
+            View scrollView = new View(inflater.getContext());
+            mFab = new FloatingActionButton(inflater.getContext());
+            root.addView(scrollView);
+            root.addView(mFab, createLayoutParams());
+            mFab.attachToView(scrollView);
+            return root;
+        }
+
+        @Override
+        public void onDestroyView() {
+            super.onDestroyView();
+            mFab = null;
+        }
+    }
+
+    static class CountingScrollDirectionListener implements ScrollDirectionListener {
+        int mCount;
+
+        @Override
+        public void onScrollDown() {
+            mCount++;
+        }
+
+        @Override
+        public void onScrollUp() {
+            mCount++;
+        }
+    }
+
+    /**
+     * Keeps the elevation itself, Robolectric's RenderNode doesn't.
+     */
+    static class ElevationFloatingActionButton extends FloatingActionButton {
+        private float mElevation;
+
+        ElevationFloatingActionButton(Context context) {
+            super(context);
+        }
+
+        @Override
+        public void setElevation(float elevation) {
+            mElevation = elevation;
+        }
+
+        @Override
+        public float getElevation() {
+            return mElevation;
+        }
+    }
+
+    static class CountingFloatingActionButton extends FloatingActionButton {
+        int mMeasureCount;
+        int mLayoutCount;
+        int mRequestLayoutCount;
+
+        CountingFloatingActionButton(Context context) {
+            super(context);
+        }
+
+        void resetCounts() {
+            mMeasureCount = 0;
+            mLayoutCount = 0;
+            mRequestLayoutCount = 0;
+        }
+
+        @Override
+        protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+            mMeasureCount++;
+            super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+        }
+
+        @Override
+        protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
+            mLayoutCount++;
+            super.onLayout(changed, left, top, right, bottom);
+        }
+
+        @Override
+        public void requestLayout() {
+            mRequestLayoutCount++;
+            super.requestLayout();
+        }
+    }
+}
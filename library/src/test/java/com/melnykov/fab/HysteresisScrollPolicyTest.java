@@ -0,0 +1,74 @@
+package com.melnykov.fab;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+public class HysteresisScrollPolicyTest {
+    private static final long FRAME_NANOS = TimeUnit.MILLISECONDS.toNanos(16);
+    private static final long START_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private long mFrameTimeNanos = START_NANOS;
+
+    @Test
+    public void ignoresScrollWithinHysteresis() {
+        ScrollPolicy policy = new HysteresisScrollPolicy(10, 0, 0);
+
+        assertEquals(ScrollPolicy.DIRECTION_NONE, scroll(policy, 6));
+        assertEquals(ScrollPolicy.DIRECTION_NONE, scroll(policy, -6));
+        assertEquals(ScrollPolicy.DIRECTION_NONE, scroll(policy, 6));
+        assertEquals(ScrollPolicy.DIRECTION_UP, scroll(policy, 6));
+    }
+
+    @Test
+    public void reportsDirectionAgainWhileScrollContinues() {
+        ScrollPolicy policy = new HysteresisScrollPolicy(10, 0, 0);
+
+        assertEquals(ScrollPolicy.DIRECTION_UP, scroll(policy, 11));
+        // The button may have been shown by the app in between, it has to hide again
+        assertEquals(ScrollPolicy.DIRECTION_UP, scroll(policy, 11));
+        assertEquals(ScrollPolicy.DIRECTION_DOWN, scroll(policy, -11));
+        assertEquals(ScrollPolicy.DIRECTION_DOWN, scroll(policy, -11));
+    }
+
+    @Test
+    public void flipsNotEarlierThanMinInterval() {
+        ScrollPolicy policy = new HysteresisScrollPolicy(10, 100, 0);
+
+        assertEquals(ScrollPolicy.DIRECTION_UP, scroll(policy, 11));
+        assertEquals(ScrollPolicy.DIRECTION_NONE, scroll(policy, -11));
+        // Still within the interval after the flip to up
+        assertEquals(ScrollPolicy.DIRECTION_NONE, scroll(policy, -11));
+        mFrameTimeNanos += TimeUnit.MILLISECONDS.toNanos(100);
+        assertEquals(ScrollPolicy.DIRECTION_DOWN, scroll(policy, -11));
+        assertEquals(ScrollPolicy.DIRECTION_NONE, scroll(policy, 11));
+    }
+
+    @Test
+    public void flingReportsWithinHysteresis() {
+        // 1000 px/s is 16 px per frame
+        ScrollPolicy policy = new HysteresisScrollPolicy(100, 0, 1000);
+
+        assertEquals(ScrollPolicy.DIRECTION_NONE, scroll(policy, 1));
+        assertEquals(ScrollPolicy.DIRECTION_NONE, scroll(policy, 15));
+        assertEquals(ScrollPolicy.DIRECTION_UP, scroll(policy, 16));
+    }
+
+    @Test
+    public void copyStartsWithCleanState() {
+        ScrollPolicy policy = new HysteresisScrollPolicy(10, 100, 0);
+        scroll(policy, 11);
+        scroll(policy, 5);
+
+        ScrollPolicy copy = policy.copy();
+        assertEquals(ScrollPolicy.DIRECTION_NONE, scroll(copy, 5));
+        assertEquals(ScrollPolicy.DIRECTION_DOWN, scroll(copy, -11));
+    }
+
+    private int scroll(ScrollPolicy policy, int delta) {
+        mFrameTimeNanos += FRAME_NANOS;
+        return policy.onScrolled(delta, mFrameTimeNanos);
+    }
+}
@@ -0,0 +1,151 @@
+package com.melnykov.fab.sample;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.os.Handler;
+import android.util.Log;
+import android.view.Choreographer;
+
+import com.melnykov.fab.FloatingActionButton;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hides and shows a button several times with the default rendering, the hardware layer animation
+ * and the direct draw mode, and reports the frame times measured with {@link Choreographer}. Only
+ * frames while the button is showing or hiding are counted, idle frames would just measure the
+ * display refresh interval.
+ * <p>
+ * On API 21+ the drawing happens on the RenderThread, which only shows up here when it holds back
+ * the next frame. Enable "Profile GPU rendering" to see its share of each frame.
+ */
+@TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+class AnimationBenchmark implements Choreographer.FrameCallback {
+    private static final String TAG = "AnimationBenchmark";
+    private static final int TOGGLES_PER_MODE = 10;
+    private static final long TOGGLE_INTERVAL_MILLIS = 300;
+    private static final long JANK_THRESHOLD_NANOS = TimeUnit.MILLISECONDS.toNanos(24);
+
+    private static final int MODE_DEFAULT = 0;
+    private static final int MODE_HARDWARE_LAYER = 1;
+    private static final int MODE_DIRECT_DRAW = 2;
+    private static final String[] MODE_NAMES = {"Default", "Hardware layer", "Direct draw"};
+
+    interface Callback {
+        void onBenchmarkFinished(String result);
+    }
+
+    private final FloatingActionButton mFab;
+    private final Callback mCallback;
+    private final Handler mHandler = new Handler();
+    private final boolean mInitialHardwareLayerAnimation;
+    private final boolean mInitialDirectDraw;
+    private final StringBuilder mResult = new StringBuilder();
+
+    private int mMode;
+    private int mToggles;
+    private boolean mRecording;
+    private long mLastFrameNanos;
+    private long mTotalFrameNanos;
+    private long mMaxFrameNanos;
+    private int mFrames;
+    private int mJankyFrames;
+
+    AnimationBenchmark(FloatingActionButton fab, Callback callback) {
+        mFab = fab;
+        mCallback = callback;
+        mInitialHardwareLayerAnimation = fab.hasHardwareLayerAnimation();
+        mInitialDirectDraw = fab.isDirectDraw();
+    }
+
+    void start() {
+        startMode(MODE_DEFAULT);
+    }
+
+    private void startMode(int mode) {
+        mMode = mode;
+        mFab.setHardwareLayerAnimation(mode == MODE_HARDWARE_LAYER);
+        mFab.setDirectDraw(mode == MODE_DIRECT_DRAW);
+        mFab.show(false);
+        mToggles = 0;
+        mLastFrameNanos = 0;
+        mTotalFrameNanos = 0;
+        mMaxFrameNanos = 0;
+        mFrames = 0;
+        mJankyFrames = 0;
+        mRecording = true;
+        // The previous mode may still have a callback posted
+        Choreographer.getInstance().removeFrameCallback(this);
+        Choreographer.getInstance().postFrameCallback(this);
+        mHandler.postDelayed(mToggle, TOGGLE_INTERVAL_MILLIS);
+    }
+
+    /**
+     * Stops the benchmark without reporting, e.g. when the activity is destroyed. The posted
+     * callbacks would otherwise keep the button and its activity for the rest of the run.
+     */
+    void cancel() {
+        mRecording = false;
+        mHandler.removeCallbacks(mToggle);
+        Choreographer.getInstance().removeFrameCallback(this);
+    }
+
+    private final Runnable mToggle = new Runnable() {
+        @Override
+        public void run() {
+            if (mToggles < TOGGLES_PER_MODE) {
+                if (mFab.isVisible()) {
+                    mFab.hide();
+                } else {
+                    mFab.show();
+                }
+                mToggles++;
+                mHandler.postDelayed(this, TOGGLE_INTERVAL_MILLIS);
+            } else {
+                finishMode();
+            }
+        }
+    };
+
+    private void finishMode() {
+        mRecording = false;
+        mResult.append(String.format(Locale.US,
+                "%s: %d animation frames, avg %.2f ms, max %.2f ms, %d janky\n",
+                MODE_NAMES[mMode],
+                mFrames,
+                mFrames > 0 ? mTotalFrameNanos / (mFrames * 1e6) : 0.0,
+                mMaxFrameNanos / 1e6,
+                mJankyFrames));
+        if (mMode < MODE_DIRECT_DRAW) {
+            startMode(mMode + 1);
+        } else {
+            mFab.setHardwareLayerAnimation(mInitialHardwareLayerAnimation);
+            mFab.setDirectDraw(mInitialDirectDraw);
+            mFab.show(false);
+            Log.i(TAG, mResult.toString());
+            mCallback.onBenchmarkFinished(mResult.toString());
+        }
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        if (!mRecording) {
+            return;
+        }
+        int state = mFab.getVisibilityState();
+        boolean animating = state == FloatingActionButton.STATE_SHOWING
+                || state == FloatingActionButton.STATE_HIDING;
+        if (animating && mLastFrameNanos > 0) {
+            long frameNanos = frameTimeNanos - mLastFrameNanos;
+            mTotalFrameNanos += frameNanos;
+            mMaxFrameNanos = Math.max(mMaxFrameNanos, frameNanos);
+            mFrames++;
+            if (frameNanos > JANK_THRESHOLD_NANOS) {
+                mJankyFrames++;
+            }
+        }
+        mLastFrameNanos = animating ? frameTimeNanos : 0;
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+}
\ No newline at end of file
@@ -3,6 +3,7 @@ package com.melnykov.fab.sample;
 import android.annotation.SuppressLint;
 import android.app.AlertDialog;
 import android.content.DialogInterface;
+import android.os.Build;
 import android.os.Bundle;
 import android.support.v4.app.Fragment;
 import android.support.v4.app.FragmentTransaction;
@@ -23,12 +24,14 @@ import android.widget.AbsListView;
 import android.widget.LinearLayout;
 import android.widget.ListView;
 import android.widget.TextView;
+import android.widget.Toast;
 
 import com.melnykov.fab.FloatingActionButton;
 import com.melnykov.fab.ObservableScrollView;
 import com.melnykov.fab.ScrollDirectionListener;
 
 public class MainActivity extends AppCompatActivity {
+    private AnimationBenchmark mAnimationBenchmark;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -36,6 +39,15 @@ public class MainActivity extends AppCompatActivity {
         initActionBar();
     }
 
+    @Override
+    protected void onDestroy() {
+        if (mAnimationBenchmark != null) {
+            mAnimationBenchmark.cancel();
+            mAnimationBenchmark = null;
+        }
+        super.onDestroy();
+    }
+
     @SuppressWarnings("deprecation")
     private void initActionBar() {
         if (getSupportActionBar() != null) {
@@ -100,7 +112,11 @@ public class MainActivity extends AppCompatActivity {
 
     @Override
     public boolean onOptionsItemSelected(MenuItem item) {
-        if (item.getItemId() == R.id.about) {
+        if (item.getItemId() == R.id.benchmark_animation) {
+            runAnimationBenchmark();
+        } else if (item.getItemId() == R.id.direct_draw) {
+            toggleDirectDraw(item);
+        } else if (item.getItemId() == R.id.about) {
             TextView content = (TextView) getLayoutInflater().inflate(R.layout.about_view, null);
             content.setMovementMethod(LinkMovementMethod.getInstance());
             content.setText(Html.fromHtml(getString(R.string.about_body)));
@@ -118,6 +134,43 @@ public class MainActivity extends AppCompatActivity {
         return super.onOptionsItemSelected(item);
     }
 
+    // Compare with "Debug GPU overdraw" and "Profile GPU rendering" enabled in developer options
+    private void toggleDirectDraw(MenuItem item) {
+        FloatingActionButton fab = (FloatingActionButton) findViewById(R.id.fab);
+        if (fab == null) {
+            return;
+        }
+        fab.setDirectDraw(!fab.isDirectDraw());
+        item.setChecked(fab.isDirectDraw());
+        Toast.makeText(this, R.string.direct_draw_hint, Toast.LENGTH_SHORT).show();
+    }
+
+    private void runAnimationBenchmark() {
+        FloatingActionButton fab = (FloatingActionButton) findViewById(R.id.fab);
+        if (fab == null) {
+            return;
+        }
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN) {
+            Toast.makeText(this, R.string.benchmark_unsupported, Toast.LENGTH_SHORT).show();
+            return;
+        }
+        if (mAnimationBenchmark != null) {
+            mAnimationBenchmark.cancel();
+        }
+        mAnimationBenchmark = new AnimationBenchmark(fab, new AnimationBenchmark.Callback() {
+            @Override
+            public void onBenchmarkFinished(String result) {
+                mAnimationBenchmark = null;
+                new AlertDialog.Builder(MainActivity.this)
+                        .setTitle(R.string.benchmark_animation)
+                        .setMessage(result)
+                        .setPositiveButton(android.R.string.ok, null)
+                        .create().show();
+            }
+        });
+        mAnimationBenchmark.start();
+    }
+
     public static class ListViewFragment extends Fragment {
 
         @SuppressLint("InflateParams")